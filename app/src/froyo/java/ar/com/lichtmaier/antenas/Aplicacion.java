@@ -5,6 +5,29 @@ import android.app.Application;
 
 public class Aplicacion extends Application
 {
+	@Override
+	public void onCreate()
+	{
+		super.onCreate();
+		Arranque.empezar();
+		RepositorioAntenas.dameInstancia(this).precargar();
+		Arranque.fase("aplicación");
+	}
+
+	@Override
+	public void onTrimMemory(int level)
+	{
+		super.onTrimMemory(level);
+		RepositorioAntenas.dameInstancia(this).liberarMemoria(level);
+	}
+
+	@Override
+	public void onLowMemory()
+	{
+		super.onLowMemory();
+		RepositorioAntenas.dameInstancia(this).liberarMemoria(TRIM_MEMORY_COMPLETE);
+	}
+
 	void reportActivityStart(Activity act) { }
 
 	void reportActivityStop(Activity act) { }
@@ -1,5 +1,6 @@
 package ar.com.lichtmaier.antenas;
 
+import android.content.Context;
 import android.content.Intent;
 import android.location.Location;
 import android.os.Bundle;
@@ -13,14 +14,14 @@ import com.google.android.gms.location.LocationRequest;
 public class LocationClientCompat implements GooglePlayServicesClient.ConnectionCallbacks, GooglePlayServicesClient.OnConnectionFailedListener
 {
 	private final LocationClient locationClient;
-	private final AntenaActivity activity;
-	private final LocationRequest locationRequest;
+	private final RepositorioAntenas repositorio;
+	private LocationRequest locationRequest;
 
-	public LocationClientCompat(AntenaActivity activity, LocationRequest locationRequest)
+	public LocationClientCompat(Context ctx, RepositorioAntenas repositorio, LocationRequest locationRequest)
 	{
-		this.activity = activity;
+		this.repositorio = repositorio;
 		this.locationRequest = locationRequest;
-		locationClient = new LocationClient(activity, this, this);
+		locationClient = new LocationClient(ctx, this, this);
 	}
 
 	public void onStart()
@@ -31,7 +32,7 @@ public class LocationClientCompat implements GooglePlayServicesClient.Connection
 	public void onResume()
 	{
 		if(locationClient.isConnected())
-			locationClient.requestLocationUpdates(locationRequest, activity);
+			locationClient.requestLocationUpdates(locationRequest, repositorio);
 		else if(!locationClient.isConnecting())
 			locationClient.connect();
 	}
@@ -39,7 +40,7 @@ public class LocationClientCompat implements GooglePlayServicesClient.Connection
 	public void onPause()
 	{
 		if(locationClient.isConnected())
-			locationClient.removeLocationUpdates(activity);
+			locationClient.removeLocationUpdates(repositorio);
 	}
 
 	public void onStop()
@@ -47,6 +48,17 @@ public class LocationClientCompat implements GooglePlayServicesClient.Connection
 		locationClient.disconnect();
 	}
 
+	/** Cambia cada cuánto y con qué precisión se pide la ubicación. */
+	public void cambiarPedido(LocationRequest locationRequest)
+	{
+		this.locationRequest = locationRequest;
+		if(locationClient.isConnected())
+		{
+			locationClient.removeLocationUpdates(repositorio);
+			locationClient.requestLocationUpdates(locationRequest, repositorio);
+		}
+	}
+
 	public Location getLastLocation()
 	{
 		return locationClient.getLastLocation();
@@ -54,8 +66,10 @@ public class LocationClientCompat implements GooglePlayServicesClient.Connection
 
 	public void onConnected()
 	{
-		activity.pedirCambioConfiguración();
-		locationClient.requestLocationUpdates(locationRequest, activity);
+		AntenaActivity activity = repositorio.dameActividad();
+		if(activity != null)
+			activity.pedirCambioConfiguración();
+		locationClient.requestLocationUpdates(locationRequest, repositorio);
 	}
 
 	public void connect()
@@ -66,7 +80,7 @@ public class LocationClientCompat implements GooglePlayServicesClient.Connection
 	@Override
 	public void onConnected(Bundle bundle)
 	{
-		activity.onConnected(bundle);
+		repositorio.onConnected(bundle);
 	}
 
 	@Override
@@ -77,7 +91,7 @@ public class LocationClientCompat implements GooglePlayServicesClient.Connection
 	@Override
 	public void onConnectionFailed(ConnectionResult connectionResult)
 	{
-		activity.onConnectionFailed(connectionResult);
+		repositorio.onConnectionFailed(connectionResult);
 	}
 
 	public boolean onActivityResult(int requestCode, int resultCode, Intent data)
@@ -1,7 +1,6 @@
 package ar.com.lichtmaier.antenas;
 
 import java.lang.reflect.Field;
-import java.text.NumberFormat;
 import java.util.*;
 import java.util.Map.Entry;
 
@@ -17,14 +16,13 @@ import android.hardware.Sensor;
 import android.hardware.SensorEvent;
 import android.hardware.SensorEventListener;
 import android.hardware.SensorManager;
-import android.location.Criteria;
 import android.location.Location;
-import android.location.LocationListener;
 import android.location.LocationManager;
 import android.net.Uri;
 import android.os.Build;
 import android.os.Bundle;
 import android.preference.PreferenceManager;
+import android.support.v4.view.ViewCompat;
 import android.support.v4.widget.ContentLoadingProgressBar;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.Toolbar;
@@ -36,18 +34,19 @@ import android.widget.TextView;
 import android.widget.Toast;
 
 import com.google.android.gms.common.ConnectionResult;
-import com.google.android.gms.location.LocationRequest;
 import com.nispok.snackbar.Snackbar;
 import com.nispok.snackbar.listeners.ActionClickListener;
 
-public class AntenaActivity extends AppCompatActivity implements SensorEventListener, com.google.android.gms.location.LocationListener
+public class AntenaActivity extends AppCompatActivity implements SensorEventListener
 {
 	private final static int CONNECTION_FAILURE_RESOLUTION_REQUEST = 9000;
 	public static final String PACKAGE = "ar.com.lichtmaier.antenas";
 
 	final private Map<Antena, View> antenaAVista = new HashMap<>();
 	final private Map<View, Antena> vistaAAntena = new HashMap<>();
-	static GlobalCoordinates coordsUsuario;
+	/** Si las filas son las restauradas de la sesión anterior. */
+	private boolean filasViejas = false;
+	RepositorioAntenas repositorio;
 	final private float[] gravity = new float[3];
 	final private float[] geomagnetic = new float[3];
 	private SensorManager sensorManager;
@@ -58,29 +57,9 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 	private int rotación;
 	boolean huboSavedInstanceState;
 
-	private LocationManager locationManager;
-
 	private MenuItem opciónAyudaArgentina, opciónAyudaReinoUnido;
 	private boolean mostrarOpciónAyudaArgentina = false, mostrarOpciónAyudaReinoUnido = false;
 
-	private final LocationListener locationListener = new LocationListener() {
-		@Override
-		public void onStatusChanged(String provider, int status, Bundle extras) { }
-		@Override
-		public void onProviderEnabled(String provider) { }
-		@Override
-		public void onProviderDisabled(String provider) { }
-
-		@Override
-		public void onLocationChanged(Location location)
-		{
-			if(location.getAccuracy() > 300)
-				return;
-			coordsUsuario = new GlobalCoordinates(location.getLatitude(), location.getLongitude());
-			nuevaUbicación();
-		}
-	};
-
 	static FlechaView flechaADesaparecer;
 	private final View.OnClickListener onAntenaClickedListener = new View.OnClickListener()
 	{
@@ -94,6 +73,9 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 			FlechaView flecha = (FlechaView)v.findViewById(R.id.flecha);
 			flecha.getLocationOnScreen(screenLocation);
 			int orientation = getResources().getConfiguration().orientation;
+			// Las antenas restauradas no tienen los canales, así que UnaAntenaActivity la tiene que buscar.
+			if(!filasViejas)
+				i.putExtra(PACKAGE + ".antena", antena);
 			i.putExtra(PACKAGE + ".antenaIndex", antena.index).
 					putExtra(PACKAGE + ".antenaPaís", antena.país.name()).
 					putExtra(PACKAGE + ".orientation", orientation).
@@ -138,14 +120,6 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 
 		PreferenceManager.setDefaultValues(this, R.xml.prefs, false);
 		prefs = PreferenceManager.getDefaultSharedPreferences(this);
-		prefs.registerOnSharedPreferenceChangeListener(new SharedPreferences.OnSharedPreferenceChangeListener()
-		{
-			@Override
-			public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key)
-			{
-				nuevaUbicación();
-			}
-		});
 		if(!prefs.getBoolean("unidad_configurada", false))
 		{
 			Locale locale = Locale.getDefault();
@@ -154,28 +128,29 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 					.putBoolean("unidad_configurada", true);
 			Compat.applyPreferences(editor);
 		}
+		leerPreferenciasDeBúsqueda();
+		unidad = prefs.getString("unit", "km");
+		prefs.registerOnSharedPreferenceChangeListener(prefsListener);
 
 		sensorManager = (SensorManager)getSystemService(Context.SENSOR_SERVICE);
 		magnetómetro = sensorManager.getDefaultSensor(Sensor.TYPE_MAGNETIC_FIELD);
 		acelerómetro = sensorManager.getDefaultSensor(Sensor.TYPE_ACCELEROMETER);
 
-		locationClient = new LocationClientCompat(this, LocationRequest.create()
-				.setPriority(LocationRequest.PRIORITY_HIGH_ACCURACY)
-				.setInterval(10000)
-				.setFastestInterval(2000)
-				.setSmallestDisplacement(10));
+		repositorio = RepositorioAntenas.dameInstancia(this);
 
-		if(savedInstanceState != null && savedInstanceState.containsKey("lat"))
-		{
-			coordsUsuario = new GlobalCoordinates(savedInstanceState.getDouble("lat"), savedInstanceState.getDouble("lon"));
-			nuevaUbicación();
-		}
+		// Si el proceso murió, se empieza con la última ubicación conocida.
+		if(repositorio.dameCoordenadas() == null && savedInstanceState != null && savedInstanceState.containsKey("lat"))
+			repositorio.ponerCoordenadas(new GlobalCoordinates(savedInstanceState.getDouble("lat"), savedInstanceState.getDouble("lon")));
+		// Si no, se muestra lo de la vez anterior hasta que llegue la ubicación.
+		else if(savedInstanceState == null)
+			repositorio.restaurarCercanas(maxDist, mostrarMenos, filtro);
 
 		huboSavedInstanceState = savedInstanceState != null;
 
 		publicidad = new Publicidad(this, "ca-app-pub-0461170458442008/6164714153");
 
 		rotación = ((WindowManager)getSystemService(WINDOW_SERVICE)).getDefaultDisplay().getRotation();
+		Arranque.fase("actividad");
 
 		final View principal = findViewById(R.id.principal);
 		ViewTreeObserver tvo = principal.getViewTreeObserver();
@@ -233,7 +208,7 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 
 	protected void actualizarDescripción(View v, Antena antena)
 	{
-		CharSequence detalleCanales = antena.dameDetalleCanales(this);
+		CharSequence detalleCanales = FormatoAntena.dameDetalleCanales(this, antena);
 		TextView tvDesc = (TextView)v.findViewById(R.id.antena_desc);
 		TextView tvDet = (TextView)v.findViewById(R.id.antena_detalle_canales);
 
@@ -251,6 +226,7 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 	protected void onSaveInstanceState(Bundle outState)
 	{
 		super.onSaveInstanceState(outState);
+		GlobalCoordinates coordsUsuario = repositorio.dameCoordenadas();
 		if(coordsUsuario != null)
 		{
 			outState.putDouble("lat", coordsUsuario.getLatitude());
@@ -291,6 +267,10 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 				i = new Intent(this, MapaActivity.class);
 				startActivity(i);
 				return true;
+			case R.id.action_buscar:
+				i = new Intent(this, BúsquedaActivity.class);
+				startActivity(i);
+				return true;
 			case R.id.action_ayuda_ar:
 				i = new Intent(Intent.ACTION_VIEW, Uri.parse("http://poné-tda.com.ar/"));
 				if(i.resolveActivity(getPackageManager()) != null)
@@ -326,8 +306,7 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 	{
 		super.onStart();
 		((Aplicacion)getApplication()).reportActivityStart(this);
-		if(locationClient != null)
-			locationClient.onStart();
+		repositorio.suscribir(this);
 	}
 
 	@Override
@@ -336,23 +315,6 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 		super.onResume();
 		sensorManager.registerListener(this, magnetómetro, SensorManager.SENSOR_DELAY_UI);
 		sensorManager.registerListener(this, acelerómetro, SensorManager.SENSOR_DELAY_UI);
-		if(locationManager != null)
-		{
-			Criteria criteria = new Criteria();
-			criteria.setAccuracy(Criteria.ACCURACY_COARSE);
-			criteria.setCostAllowed(true);
-			try
-			{
-				Compat.requestLocationUpdates(locationManager, 1000 * 60, 0, criteria, locationListener);
-			} catch(IllegalArgumentException e)
-			{
-				Log.e("antenas", "Error pidiendo updates de GPS", e);
-				Toast.makeText(this, getString(R.string.no_ubicacion), Toast.LENGTH_SHORT).show();
-				finish();
-			}
-		}
-		if(locationClient != null)
-			locationClient.onResume();
 		publicidad.onResume();
 	}
 
@@ -363,18 +325,14 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 		hayInfoDeAcelerómetro = false;
 		hayInfoDeMagnetómetro = false;
 		sensorManager.unregisterListener(this);
-		if(locationManager != null)
-			locationManager.removeUpdates(locationListener);
-		if(locationClient != null)
-			locationClient.onPause();
+		repositorio.guardarCercanas();
 		super.onPause();
 	}
 
 	@Override
 	protected void onStop()
 	{
-		if(locationClient != null)
-			locationClient.onStop();
+		repositorio.desuscribir(this);
 		((Aplicacion)getApplication()).reportActivityStop(this);
 		super.onStop();
 	}
@@ -382,22 +340,78 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 	@Override
 	protected void onDestroy()
 	{
+		prefs.unregisterOnSharedPreferenceChangeListener(prefsListener);
 		publicidad.onDestroy();
 		super.onDestroy();
 	}
 
-	private LocationClientCompat locationClient;
 	private SharedPreferences prefs;
+	private int maxDist;
+	private boolean mostrarMenos;
+	private FiltroAntenas filtro = FiltroAntenas.TODAS;
+	private String unidad;
+
+	/** Cada preferencia dispara sólo el trabajo que le corresponde, y sólo si su valor cambió. */
+	private final SharedPreferences.OnSharedPreferenceChangeListener prefsListener = new SharedPreferences.OnSharedPreferenceChangeListener()
+	{
+		@Override
+		public void onSharedPreferenceChanged(SharedPreferences sharedPreferences, String key)
+		{
+			switch(key)
+			{
+				case "max_dist":
+				case "menos":
+					if(leerPreferenciasDeBúsqueda())
+						nuevaUbicación();
+					break;
+				case "unit":
+					String u = sharedPreferences.getString("unit", "km");
+					if(!u.equals(unidad))
+					{
+						unidad = u;
+						actualizarDistancias();
+					}
+					break;
+				default:
+					if(key.startsWith("filtro_") && leerPreferenciasDeBúsqueda())
+						nuevaUbicación();
+					// Las demás (los países del mapa, las marcas de configuración) no afectan a esta pantalla.
+			}
+		}
+	};
+
+	/** Lee las preferencias que determinan qué antenas se muestran.
+	 *
+	 * @return si alguna cambió
+	 */
+	private boolean leerPreferenciasDeBúsqueda()
+	{
+		int d = Integer.parseInt(prefs.getString("max_dist", "60")) * 1000;
+		boolean m = prefs.getBoolean("menos", true);
+		FiltroAntenas f = RepositorioAntenas.dameFiltro(prefs);
+		if(d == maxDist && m == mostrarMenos && f.equals(filtro))
+			return false;
+		maxDist = d;
+		mostrarMenos = m;
+		filtro = f;
+		return true;
+	}
+
 	private long lastUpdate = 0;
+	private double últimaBrújula = Double.NaN;
 	void nuevaOrientación(double brújula)
 	{
 		long now = System.currentTimeMillis();
 		if(now - lastUpdate < 33)
 			return;
+		if(Math.abs(brújula - últimaBrújula) < .5)
+			return;
 		lastUpdate = now;
+		últimaBrújula = brújula;
 		//NumberFormat nf = NumberFormat.getInstance(new Locale("es", "AR"));
 		//((TextView)findViewById(R.id.orientacion)).setText(nf.format(brújula) /*+ " " + nf.format(Math.PI/2.0 - brújula)*/);
 		//Log.d("antenas", "orientacion: " + values[0]);
+		GlobalCoordinates coordsUsuario = repositorio.dameCoordenadas();
 		for(Entry<Antena, View> e : antenaAVista.entrySet())
 		{
 			Antena antena = e.getKey();
@@ -411,9 +425,21 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 	final private float[] values = new float[3];
 	final private float[] r2 = new float[9];
 
-	@SuppressWarnings("SuspiciousNameCombination")
 	@Override
 	public void onSensorChanged(SensorEvent event)
+	{
+		long t = Métricas.empezar("onSensorChanged");
+		try
+		{
+			procesarSensor(event);
+		} finally
+		{
+			Métricas.terminar("onSensorChanged", t);
+		}
+	}
+
+	@SuppressWarnings("SuspiciousNameCombination")
+	private void procesarSensor(SensorEvent event)
 	{
 		if(event.sensor == magnetómetro)
 		{
@@ -466,12 +492,23 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 
 	protected void nuevaUbicación()
 	{
-		if(coordsUsuario == null)
+		if(repositorio.dameCoordenadas() == null)
 			return;
-		int maxDist = Integer.parseInt(prefs.getString("max_dist", "60")) * 1000;
-		List<Antena> antenasCerca = Antena.dameAntenasCerca(this, coordsUsuario,
-				maxDist,
-				prefs.getBoolean("menos", true));
+		long t = Métricas.empezar("nuevaUbicación");
+		try
+		{
+			mostrarAntenasCerca();
+		} finally
+		{
+			Métricas.terminar("nuevaUbicación", t);
+		}
+	}
+
+	private void mostrarAntenasCerca()
+	{
+		// Los rumbos cambian con la ubicación, así que las flechas se tienen que actualizar aunque no cambie la brújula.
+		últimaBrújula = Double.NaN;
+		List<Antena> antenasCerca = repositorio.dameAntenasCerca(maxDist, mostrarMenos, filtro);
 		if(!menúConfigurado)
 		{
 			Set<País> países = EnumSet.noneOf(País.class);
@@ -492,8 +529,18 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 			}
 			menúConfigurado = true;
 		}
-		Iterator<Entry<Antena, View>> it = antenaAVista.entrySet().iterator();
 		ViewGroup contenedor = (ViewGroup)findViewById(R.id.antenas);
+		// Las filas de la sesión anterior tienen antenas provisorias y están en el orden de la ubicación vieja:
+		// con la primera ubicación nueva se arman de nuevo.
+		boolean viejas = repositorio.esUbicaciónVieja();
+		if(filasViejas && !viejas)
+		{
+			contenedor.removeAllViews();
+			antenaAVista.clear();
+			vistaAAntena.clear();
+		}
+		filasViejas = viejas;
+		Iterator<Entry<Antena, View>> it = antenaAVista.entrySet().iterator();
 		while(it.hasNext())
 		{
 			Entry<Antena, View> e = it.next();
@@ -527,7 +574,7 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 					contenedor.addView(v);
 				v.setOnClickListener(onAntenaClickedListener);
 				v.setFocusable(true);
-				CharSequence detalleCanales = a.dameDetalleCanales(this);
+				CharSequence detalleCanales = FormatoAntena.dameDetalleCanales(this, a);
 				TextView tvDesc = (TextView)v.findViewById(R.id.antena_desc);
 				TextView tvDetalle = (TextView)v.findViewById(R.id.antena_detalle_canales);
 				if(a.descripción != null)
@@ -547,8 +594,15 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 				vistaAAntena.put(v, a);
 			}
 		}
+		// Las antenas de la sesión anterior se muestran atenuadas, y se sigue esperando la ubicación.
+		ViewCompat.setAlpha(contenedor, viejas ? .5f : 1f);
 		ContentLoadingProgressBar pb = (ContentLoadingProgressBar)findViewById(R.id.progressBar);
-		pb.hide();
+		if(viejas)
+			pb.show();
+		else
+			pb.hide();
+		if(!antenasCerca.isEmpty())
+			Arranque.hayResultados(contenedor);
 		TextView problema = (TextView)findViewById(R.id.problema);
 		if(antenasCerca.isEmpty())
 		{
@@ -556,6 +610,8 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 			String[] vv = getResources().getStringArray(R.array.pref_max_dist_values);
 			if(Integer.parseInt(vv[vv.length-1]) * 1000 != maxDist)
 				sb.append(' ').append(getString(R.string.podes_incrementar_radio));
+			if(filtro.filtraAlgo())
+				sb.append(' ').append(getString(R.string.hay_filtro));
 			problema.setText(sb.toString());
 			problema.setVisibility(View.VISIBLE);
 		} else
@@ -564,6 +620,16 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 		}
 	}
 
+	/** Vuelve a escribir las distancias, al cambiar la unidad o al moverse sin que cambien las antenas que se muestran. */
+	protected void actualizarDistancias()
+	{
+		for(Entry<Antena, View> e : antenaAVista.entrySet())
+			ponéDistancia(e.getKey(), e.getValue());
+		TextView problema = (TextView)findViewById(R.id.problema);
+		if(problema.getVisibility() == View.VISIBLE)
+			nuevaUbicación();
+	}
+
 	private void ponéDistancia(Antena a, View v)
 	{
 		ponéDistancia(a, (TextView)v.findViewById(R.id.antena_dist));
@@ -571,69 +637,23 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 
 	protected void ponéDistancia(Antena a, TextView tv)
 	{
-		tv.setText(formatDistance(a.distanceTo(coordsUsuario)));
+		tv.setText(formatDistance(a.distanceTo(repositorio.dameCoordenadas())));
 	}
 
-	final static private NumberFormat nf = NumberFormat.getNumberInstance(
-			"es".equals(Locale.getDefault().getLanguage())
-				? new Locale("es", "AR")
-				: Locale.getDefault());
 	private String formatDistance(double distancia)
 	{
-		String unit = prefs.getString("unit", "km");
-		double f;
-		switch(unit)
-		{
-			case "km":
-				f = 1000.0;
-				break;
-			case "mi":
-				f = 1609.344;
-				break;
-			default:
-				throw new RuntimeException("unit: " + unit);
-		}
-		nf.setMaximumFractionDigits(distancia < f ? 2 : 1);
-		return nf.format(distancia / f) + ' ' + unit;
+		return FormatoAntena.formatearDistancia(distancia, unidad);
 	}
 
-	public void onConnectionFailed(ConnectionResult r)
+	void resolverFalloDeConexión(ConnectionResult r)
 	{
-		if(r.hasResolution())
+		Log.w("antenas", "Play Services: " + r);
+		try
 		{
-			Log.w("antenas", "Play Services: " + r);
-			try
-			{
-				r.startResolutionForResult(this, CONNECTION_FAILURE_RESOLUTION_REQUEST);
-			} catch(SendIntentException e)
-			{
-				e.printStackTrace();
-			}
-		} else
+			r.startResolutionForResult(this, CONNECTION_FAILURE_RESOLUTION_REQUEST);
+		} catch(SendIntentException e)
 		{
-			Log.e("antenas", "Play Services no disponible: " + r + ". No importa, sobreviviremos.");
-
-			pedirCambioConfiguración();
-
-			locationManager = (LocationManager)getSystemService(Context.LOCATION_SERVICE);
-			locationClient = null;
-			if(coordsUsuario == null)
-			{
-				Location location = locationManager.getLastKnownLocation(LocationManager.GPS_PROVIDER);
-				if(location != null && location.getAccuracy() < 300)
-				{
-					coordsUsuario = new GlobalCoordinates(location.getLatitude(), location.getLongitude());
-					nuevaUbicación();
-				} else
-				{
-					locationManager.getLastKnownLocation(LocationManager.NETWORK_PROVIDER);
-					if(location != null && location.getAccuracy() < 300)
-					{
-						coordsUsuario = new GlobalCoordinates(location.getLatitude(), location.getLongitude());
-						nuevaUbicación();
-					}
-				}
-			}
+			e.printStackTrace();
 		}
 	}
 
@@ -657,25 +677,11 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 		}
 	}
 
-	public void onConnected(Bundle arg0)
+	void ubicaciónConectada(Location location)
 	{
-		Location location = locationClient.getLastLocation();
-		if(location != null)
-		{
-			coordsUsuario = new GlobalCoordinates(location.getLatitude(), location.getLongitude());
-			nuevaUbicación();
-		}
-		locationClient.onConnected();
 		publicidad.load(location);
 	}
 
-	@Override
-	public void onLocationChanged(Location location)
-	{
-		coordsUsuario = new GlobalCoordinates(location.getLatitude(), location.getLongitude());
-		nuevaUbicación();
-	}
-
 	@Override
 	protected void onActivityResult(int requestCode, int resultCode, Intent data)
 	{
@@ -684,11 +690,11 @@ public class AntenaActivity extends AppCompatActivity implements SensorEventList
 			case CONNECTION_FAILURE_RESOLUTION_REQUEST:
 				if(resultCode == RESULT_OK)
 				{
-					locationClient.connect();
+					repositorio.reconectar();
 				}
 				return;
 		}
-		if(locationClient.onActivityResult(requestCode, resultCode, data))
+		if(repositorio.onActivityResult(requestCode, resultCode, data))
 			return;
 		super.onActivityResult(requestCode, resultCode, data);
 	}
@@ -0,0 +1,129 @@
+package ar.com.lichtmaier.antenas;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewTreeObserver;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Queue;
+import java.util.Set;
+
+/** Ordena el trabajo del arranque: lo que no hace falta para mostrar las antenas, como la publicidad y las
+ * estadísticas, espera a que se dibuje la primera lista con resultados y después se hace de a una cosa
+ * por vez cuando el hilo principal está libre.
+ *
+ * También mide cuánto tarda en llegar cada fase desde que arranca la aplicación; se ven en
+ * {@link MétricasActivity} como "arranque: ...". Todo se usa desde el hilo principal.
+ */
+final class Arranque
+{
+	/** Si en este tiempo no se mostraron resultados (por ejemplo, no hay ubicación), se sigue igual. */
+	private static final long ESPERA_MÁXIMA = 5000;
+
+	private static long inicio = -1;
+	private static boolean listo = false, esperandoCuadro = false;
+	private static final Set<String> fases = new HashSet<>();
+	private static final Queue<Runnable> pendientes = new ArrayDeque<>();
+	private static Handler handler;
+
+	private Arranque() { }
+
+	/** Se llama al crear la aplicación. */
+	static void empezar()
+	{
+		if(inicio >= 0)
+			return;
+		inicio = System.nanoTime();
+		handler = new Handler(Looper.getMainLooper());
+		handler.postDelayed(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				if(!listo)
+				{
+					fase("sin resultados");
+					terminar();
+				}
+			}
+		}, ESPERA_MÁXIMA);
+	}
+
+	/** Registra que se llegó a una fase del arranque. Sólo cuenta la primera vez. */
+	static void fase(String nombre)
+	{
+		if(inicio < 0 || !fases.add(nombre))
+			return;
+		long micros = (System.nanoTime() - inicio) / 1000;
+		Métricas.registrar("arranque: " + nombre, micros);
+		Log.i("antenas", "arranque: " + nombre + " a los " + (micros / 1000) + "ms");
+	}
+
+	/** Hace algo cuando el arranque haya terminado, o enseguida si ya terminó. Las tareas se hacen en orden. */
+	static void cuandoTermine(Runnable tarea)
+	{
+		if(listo && pendientes.isEmpty())
+			tarea.run();
+		else
+			pendientes.add(tarea);
+	}
+
+	/** Avisa que se acaban de poner resultados en la lista. Cuando se dibujen, empieza lo que estaba esperando.
+	 *
+	 * @param lista la vista donde están los resultados
+	 */
+	static void hayResultados(final View lista)
+	{
+		if(listo || esperandoCuadro)
+			return;
+		fase("primeros resultados");
+		final ViewTreeObserver vto = lista.getViewTreeObserver();
+		if(!vto.isAlive())
+			return;
+		esperandoCuadro = true;
+		vto.addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener()
+		{
+			@Override
+			public boolean onPreDraw()
+			{
+				if(vto.isAlive())
+					vto.removeOnPreDrawListener(this);
+				else
+					lista.getViewTreeObserver().removeOnPreDrawListener(this);
+				// Lo que se postea acá corre después de que termina de dibujarse este cuadro.
+				handler.post(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						fase("primer cuadro con resultados");
+						terminar();
+					}
+				});
+				return true;
+			}
+		});
+	}
+
+	private static void terminar()
+	{
+		if(listo)
+			return;
+		listo = true;
+		Looper.myQueue().addIdleHandler(new MessageQueue.IdleHandler()
+		{
+			@Override
+			public boolean queueIdle()
+			{
+				Runnable tarea = pendientes.poll();
+				if(tarea != null)
+					tarea.run();
+				return !pendientes.isEmpty();
+			}
+		});
+	}
+}
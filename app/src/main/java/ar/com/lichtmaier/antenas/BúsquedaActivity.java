@@ -0,0 +1,261 @@
+package ar.com.lichtmaier.antenas;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Process;
+import android.preference.PreferenceManager;
+import android.support.v4.app.NavUtils;
+import android.support.v7.app.AppCompatActivity;
+import android.text.Editable;
+import android.text.TextWatcher;
+import android.util.Log;
+import android.view.MenuItem;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.AdapterView;
+import android.widget.ArrayAdapter;
+import android.widget.EditText;
+import android.widget.ListView;
+import android.widget.TextView;
+
+import org.gavaghan.geodesy.GlobalCoordinates;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/** Busca canales por nombre, cadena o número en todos los países, sin conexión, con el índice que se
+ * arma al compilar ({@link ÍndiceCanales}). Los resultados se ordenan por distancia al usuario o, si todavía
+ * no se sabe dónde está, por país.
+ */
+public class BúsquedaActivity extends AppCompatActivity
+{
+	/** Cuántos resultados mostrar como mucho. */
+	private static final int MÁXIMO = 50;
+
+	/** Cuánto esperar a que se deje de escribir antes de buscar, en milisegundos. */
+	private static final int ESPERA = 250;
+
+	/** Un solo hilo para todas las búsquedas: si se escribe rápido, las viejas se descartan sin terminar. */
+	private static final ExecutorService buscador = Executors.newSingleThreadExecutor(new ThreadFactory()
+	{
+		@Override
+		public Thread newThread(final Runnable r)
+		{
+			return new Thread(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+					r.run();
+				}
+			}, "búsqueda");
+		}
+	});
+
+	private RepositorioAntenas repositorio;
+	private final Handler handler = new Handler();
+	private ArrayAdapter<Antena> adapter;
+	private final List<Double> distancias = new ArrayList<>();
+	private String unidad;
+
+	/** Se incrementa con cada búsqueda, para descartar los resultados de las que ya no sirven. */
+	private volatile int búsqueda = 0;
+
+	/** Lo último que se escribió, que se busca si pasa {@link #ESPERA} sin que cambie. */
+	private String consultaPendiente;
+
+	private final Runnable buscarPendiente = new Runnable()
+	{
+		@Override
+		public void run()
+		{
+			buscar(consultaPendiente);
+		}
+	};
+
+	@Override
+	protected void onCreate(Bundle savedInstanceState)
+	{
+		super.onCreate(savedInstanceState);
+		setContentView(R.layout.activity_busqueda);
+		if(getSupportActionBar() != null)
+			getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+		repositorio = RepositorioAntenas.dameInstancia(this);
+		unidad = PreferenceManager.getDefaultSharedPreferences(this).getString("unit", "km");
+
+		adapter = new ArrayAdapter<Antena>(this, android.R.layout.simple_list_item_2, android.R.id.text1)
+		{
+			@Override
+			public View getView(int position, View convertView, ViewGroup parent)
+			{
+				View v = super.getView(position, convertView, parent);
+				Antena antena = getItem(position);
+				((TextView)v.findViewById(android.R.id.text1)).setText(FormatoAntena.dameNombre(BúsquedaActivity.this, antena));
+				Double distancia = distancias.get(position);
+				((TextView)v.findViewById(android.R.id.text2)).setText(distancia == null
+						? antena.país.name()
+						: FormatoAntena.formatearDistancia(distancia, unidad) + " · " + antena.país);
+				return v;
+			}
+		};
+		ListView lista = (ListView)findViewById(android.R.id.list);
+		lista.setAdapter(adapter);
+		lista.setOnItemClickListener(new AdapterView.OnItemClickListener()
+		{
+			@Override
+			public void onItemClick(AdapterView<?> parent, View view, int position, long id)
+			{
+				abrir(adapter.getItem(position), view);
+			}
+		});
+
+		EditText consulta = (EditText)findViewById(R.id.consulta);
+		consulta.addTextChangedListener(new TextWatcher()
+		{
+			@Override
+			public void beforeTextChanged(CharSequence s, int start, int count, int after) { }
+
+			@Override
+			public void onTextChanged(CharSequence s, int start, int before, int count) { }
+
+			@Override
+			public void afterTextChanged(Editable s)
+			{
+				esperarParaBuscar(s.toString());
+			}
+		});
+		if(consulta.length() > 0)
+			buscar(consulta.getText().toString());
+	}
+
+	@Override
+	protected void onDestroy()
+	{
+		handler.removeCallbacks(buscarPendiente);
+		búsqueda++;
+		super.onDestroy();
+	}
+
+	/** Busca cuando se deja de escribir, para no buscar con cada letra. */
+	private void esperarParaBuscar(String consulta)
+	{
+		handler.removeCallbacks(buscarPendiente);
+		if(consulta.trim().isEmpty())
+		{
+			buscar(consulta);
+			return;
+		}
+		// Lo que se esté buscando ya no sirve.
+		búsqueda++;
+		consultaPendiente = consulta;
+		handler.postDelayed(buscarPendiente, ESPERA);
+	}
+
+	/** Busca en otro hilo: la primera vez hay que leer el índice, y las antenas de los resultados pueden
+	 * ser de países que no están cargados. Esos países no se cargan: cada antena se lee sola.
+	 */
+	private void buscar(final String consulta)
+	{
+		final int esta = ++búsqueda;
+		if(consulta.trim().isEmpty())
+		{
+			mostrar(esta, new ArrayList<Antena>(), new ArrayList<Double>());
+			return;
+		}
+		final GlobalCoordinates coords = repositorio.dameCoordenadas();
+		buscador.execute(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				if(esta != búsqueda)
+					return;
+				List<Antena> encontradas = Collections.emptyList();
+				final List<Double> dists = new ArrayList<>();
+				long t = Métricas.empezar("buscar canales");
+				try
+				{
+					ÍndiceCanales índice = repositorio.dameÍndiceCanales();
+					List<ÍndiceCanales.Resultado> res = coords != null
+							? índice.buscar(consulta, coords.getLatitude(), coords.getLongitude(), MÁXIMO)
+							: índice.buscar(consulta, MÁXIMO);
+					if(esta != búsqueda)
+						return;
+					encontradas = repositorio.dameAntenasSueltas(res);
+					for(ÍndiceCanales.Resultado r : res)
+						dists.add(coords != null ? r.distancia : null);
+				} catch(IOException e)
+				{
+					Log.e("antenas", "no se pudo leer el índice de canales", e);
+				} finally
+				{
+					Métricas.terminar("buscar canales", t);
+				}
+				final List<Antena> antenas = encontradas;
+				handler.post(new Runnable()
+				{
+					@Override
+					public void run()
+					{
+						mostrar(esta, antenas, dists);
+					}
+				});
+			}
+		});
+	}
+
+	private void mostrar(int esta, List<Antena> antenas, List<Double> dists)
+	{
+		if(esta != búsqueda)
+			return;
+		distancias.clear();
+		distancias.addAll(dists);
+		adapter.setNotifyOnChange(false);
+		adapter.clear();
+		for(Antena antena : antenas)
+			adapter.add(antena);
+		adapter.notifyDataSetChanged();
+		boolean vacía = antenas.isEmpty() && ((EditText)findViewById(R.id.consulta)).getText().toString().trim().length() > 0;
+		findViewById(android.R.id.empty).setVisibility(vacía ? View.VISIBLE : View.GONE);
+		findViewById(android.R.id.list).setVisibility(vacía ? View.GONE : View.VISIBLE);
+	}
+
+	/** Muestra una antena. No hay flecha en la lista, así que la de {@link UnaAntenaActivity} sale de la fila. */
+	private void abrir(Antena antena, View fila)
+	{
+		int[] screenLocation = new int[2];
+		fila.getLocationOnScreen(screenLocation);
+		GlobalCoordinates coords = repositorio.dameCoordenadas();
+		Intent i = new Intent(this, UnaAntenaActivity.class);
+		i.putExtra(AntenaActivity.PACKAGE + ".antena", antena).
+				putExtra(AntenaActivity.PACKAGE + ".antenaIndex", antena.index).
+				putExtra(AntenaActivity.PACKAGE + ".antenaPaís", antena.país.name()).
+				putExtra(AntenaActivity.PACKAGE + ".orientation", getResources().getConfiguration().orientation).
+				putExtra(AntenaActivity.PACKAGE + ".left", screenLocation[0] + fila.getWidth() - fila.getHeight()).
+				putExtra(AntenaActivity.PACKAGE + ".top", screenLocation[1]).
+				putExtra(AntenaActivity.PACKAGE + ".width", fila.getHeight()).
+				putExtra(AntenaActivity.PACKAGE + ".height", fila.getHeight()).
+				putExtra(AntenaActivity.PACKAGE + ".ángulo", coords != null ? antena.rumboDesde(coords) : 0.0);
+		AntenaActivity.flechaADesaparecer = null;
+		startActivity(i);
+		overridePendingTransition(0, 0);
+	}
+
+	@Override
+	public boolean onOptionsItemSelected(MenuItem item)
+	{
+		if(item.getItemId() == android.R.id.home)
+		{
+			NavUtils.navigateUpFromSameTask(this);
+			return true;
+		}
+		return super.onOptionsItemSelected(item);
+	}
+}
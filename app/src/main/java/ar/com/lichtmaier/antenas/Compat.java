@@ -6,6 +6,7 @@ import android.location.Criteria;
 import android.location.LocationListener;
 import android.location.LocationManager;
 import android.os.Build;
+import android.os.Trace;
 import android.view.View;
 
 public class Compat
@@ -13,7 +14,9 @@ public class Compat
 	final private static CompatImpl impl;
 
 	static {
-		if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB)
+		if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2)
+			impl = new CompatImplJBMR2();
+		else if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.HONEYCOMB)
 			impl = new CompatImplHC();
 		else if(Build.VERSION.SDK_INT >= Build.VERSION_CODES.GINGERBREAD)
 			impl = new CompatImplJB();
@@ -35,6 +38,11 @@ public class Compat
 		{
 			editor.commit();
 		}
+
+		Métricas.Rastreador dameRastreador()
+		{
+			return null;
+		}
 	}
 
 	@TargetApi(Build.VERSION_CODES.GINGERBREAD)
@@ -65,6 +73,29 @@ public class Compat
 		}
 	}
 
+	@TargetApi(Build.VERSION_CODES.JELLY_BEAN_MR2)
+	static class CompatImplJBMR2 extends CompatImplHC
+	{
+		@Override
+		Métricas.Rastreador dameRastreador()
+		{
+			return new Métricas.Rastreador()
+			{
+				@Override
+				public void empezar(String sección)
+				{
+					Trace.beginSection(sección);
+				}
+
+				@Override
+				public void terminar()
+				{
+					Trace.endSection();
+				}
+			};
+		}
+	}
+
 	static void requestLocationUpdates(LocationManager locationManager, int minTime, int minDistance, Criteria criteria, LocationListener locationListener)
 	{
 		impl.requestLocationUpdates(locationManager, minTime, minDistance, criteria, locationListener);
@@ -83,4 +114,12 @@ public class Compat
 	{
 		impl.applyPreferences(editor);
 	}
+
+	/** Devuelve un {@link Métricas.Rastreador} que muestra las secciones en systrace, o null si la versión de
+	 * Android no lo permite.
+	 */
+	public static Métricas.Rastreador dameRastreador()
+	{
+		return impl.dameRastreador();
+	}
 }
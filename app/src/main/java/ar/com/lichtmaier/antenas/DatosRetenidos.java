@@ -0,0 +1,49 @@
+package ar.com.lichtmaier.antenas;
+
+import android.os.Bundle;
+import android.support.v4.app.Fragment;
+import android.support.v4.app.FragmentActivity;
+import android.support.v4.app.FragmentManager;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/** Fragment sin vista que sobrevive a los cambios de configuración (por ejemplo, al rotar la pantalla).
+ *
+ * Guarda lo que es propio de la pantalla; lo que se comparte entre pantallas está en {@link RepositorioAntenas}.
+ */
+public class DatosRetenidos extends Fragment
+{
+	private static final String TAG = "datos_retenidos";
+
+	/** Las antenas que tienen marcador en el mapa. */
+	final Set<Antena> antenasEnMapa = new HashSet<>();
+
+	public DatosRetenidos()
+	{
+	}
+
+	@Override
+	public void onCreate(Bundle savedInstanceState)
+	{
+		super.onCreate(savedInstanceState);
+		setRetainInstance(true);
+	}
+
+	/** Obtiene los datos retenidos de la actividad, creándolos si hace falta.
+	 *
+	 * @param act la actividad
+	 * @return los datos
+	 */
+	static DatosRetenidos dameDatos(FragmentActivity act)
+	{
+		FragmentManager fm = act.getSupportFragmentManager();
+		DatosRetenidos datos = (DatosRetenidos)fm.findFragmentByTag(TAG);
+		if(datos == null)
+		{
+			datos = new DatosRetenidos();
+			fm.beginTransaction().add(datos, TAG).commit();
+		}
+		return datos;
+	}
+}
@@ -0,0 +1,228 @@
+package ar.com.lichtmaier.antenas;
+
+import android.content.Context;
+import android.content.Intent;
+import android.net.Uri;
+import android.text.SpannableStringBuilder;
+import android.text.style.RelativeSizeSpan;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.ImageView;
+import android.widget.TextView;
+
+import com.google.android.gms.maps.model.LatLng;
+
+import org.gavaghan.geodesy.GlobalCoordinates;
+
+import java.text.NumberFormat;
+import java.util.Locale;
+
+/** Lo que necesita Android para mostrar {@link Antena}s y {@link Canal}es: textos, logos y vistas. */
+final class FormatoAntena
+{
+	private FormatoAntena() { }
+
+	static String dameNombre(Context context, Antena antena)
+	{
+		Locale locale = context.getResources().getConfiguration().locale;
+		if(antena.nombre == null || !locale.equals(antena.localeNombre))
+		{
+			StringBuilder sb = new StringBuilder();
+			if(antena.descripción != null)
+			{
+				sb.append(antena.descripción);
+				if(antena.canales != null && !antena.canales.isEmpty())
+					sb.append(" (");
+			}
+			if(antena.canales != null)
+				sb.append(dameDetalleCanales(context, antena));
+
+			if(antena.descripción != null && antena.canales != null && !antena.canales.isEmpty())
+				sb.append(")");
+			antena.nombre = sb.toString();
+			antena.localeNombre = locale;
+		}
+		return antena.nombre.toString();
+	}
+
+	/** El texto de los canales de la antena. Las antenas restauradas de la sesión anterior no tienen canales,
+	 * sólo el texto guardado.
+	 */
+	static CharSequence dameDetalleCanales(Context context, Antena antena)
+	{
+		Locale locale = context.getResources().getConfiguration().locale;
+		if(antena.detalleCanales != null && locale.equals(antena.localeDetalleCanales))
+			return antena.detalleCanales;
+		if(antena.canales == null || antena.canales.isEmpty())
+			return null;
+
+		SpannableStringBuilder sb = new SpannableStringBuilder();
+		boolean primero = true;
+		for(Canal canal : antena.canales)
+		{
+			if(primero)
+				primero = false;
+			else
+				sb.append(", ");
+			if(canal.nombre != null)
+				sb.append(canal.nombre);
+			if(canal.numero != null && (canal.nombre == null || !canal.númeroEnElNombre()))
+			{
+				int desde = 0;
+				if(canal.nombre != null)
+				{
+					desde = sb.length() + 1;
+					sb.append(" (");
+				}
+				sb.append(context.getString(R.string.ch_number, canal.numero));
+				if(canal.nombre != null)
+				{
+					sb.append(")");
+					sb.setSpan(new RelativeSizeSpan(.8f), desde, sb.length(), 0);
+				}
+			}
+		}
+		antena.detalleCanales = sb;
+		antena.localeDetalleCanales = locale;
+		return antena.detalleCanales;
+	}
+
+	static LatLng dameLatLng(Antena antena)
+	{
+		GlobalCoordinates c = antena.dameCoordenadas();
+		return new LatLng(c.getLatitude(), c.getLongitude());
+	}
+
+	final static private NumberFormat nf = NumberFormat.getNumberInstance(
+			"es".equals(Locale.getDefault().getLanguage())
+				? new Locale("es", "AR")
+				: Locale.getDefault());
+
+	/** Escribe una distancia en metros en la unidad elegida en las preferencias ("km" o "mi"). */
+	static String formatearDistancia(double distancia, String unidad)
+	{
+		double f;
+		switch(unidad)
+		{
+			case "km":
+				f = 1000.0;
+				break;
+			case "mi":
+				f = 1609.344;
+				break;
+			default:
+				throw new RuntimeException("unit: " + unidad);
+		}
+		nf.setMaximumFractionDigits(distancia < f ? 2 : 1);
+		return nf.format(distancia / f) + ' ' + unidad;
+	}
+
+	static void mostrarInformacion(Context ctx, Antena antena)
+	{
+		if(antena.país != País.UK || antena.ref == null)
+			return;
+		Intent intent = new Intent(Intent.ACTION_VIEW, Uri.parse("http://www.ukfree.tv/txdetail.php?a=" + antena.ref));
+		ctx.startActivity(intent);
+	}
+
+	static boolean hayImágenes(Antena antena)
+	{
+		for(Canal canal : antena.canales)
+			if(dameLogo(canal.dameCadena()) != 0)
+				return true;
+		return false;
+	}
+
+	/** Obtiene el logo de la cadena que más canales tiene en la antena.
+	 *
+	 * @return un recurso apuntando a un logo, o 0 si no hay
+	 */
+	static int dameLogoPrincipal(Antena antena)
+	{
+		return dameLogo(antena.dameCadenaPrincipal());
+	}
+
+	/** Obtiene un logo asociado a una cadena.
+	 *
+	 * @param cadena el nombre normalizado de la cadena (ver {@link Canal#dameCadena()})
+	 * @return un recurso apuntando a un logo, o 0 si no hay
+	 */
+	static int dameLogo(String cadena)
+	{
+		if(cadena == null)
+			return 0;
+		switch(cadena)
+		{
+			case "ABC":
+				return R.drawable.logo_abc;
+			case "CBS":
+				return R.drawable.logo_cbs;
+			case "CW":
+				return R.drawable.logo_cw;
+			case "FOX":
+				return R.drawable.logo_fox;
+			case "ION":
+				return R.drawable.logo_ion;
+			case "MYTV":
+				return R.drawable.logo_mytv;
+			case "NBC":
+				return R.drawable.logo_nbc;
+			case "PBS":
+				return R.drawable.logo_pbs;
+			case "TELEMUNDO":
+				return R.drawable.logo_telemundo;
+			case "TBN":
+				return R.drawable.logo_tbn;
+			case "UNIMAS":
+				return R.drawable.logo_unimas;
+			case "UNIVISION":
+				return R.drawable.logo_univision;
+		}
+		return 0;
+	}
+
+	/** Crea una vista que muestra información del canal.
+	 *
+	 * @param ctx un contexto
+	 * @param canal el canal
+	 * @param parent el {@link android.view.ViewGroup} donde se insertará la vista
+	 * @param conImagen si incluir ícono asociado al canal
+	 * @return la vista
+	 */
+	static View dameViewCanal(Context ctx, Canal canal, ViewGroup parent, boolean conImagen)
+	{
+		View vc = ((LayoutInflater)ctx.getSystemService(Context.LAYOUT_INFLATER_SERVICE)).inflate(R.layout.canal, parent, false);
+		((TextView)vc.findViewById(R.id.nombre_canal)).setText(canal.nombre);
+		int logo = 0;
+		if(conImagen)
+		{
+			logo = dameLogo(canal.dameCadena());
+			if(logo > 0)
+			{
+				ImageView iv = (ImageView)vc.findViewById(R.id.imagen_canal);
+				iv.setImageResource(logo);
+				iv.setContentDescription(canal.cadena);
+			}
+		} else
+		{
+			vc.findViewById(R.id.imagen_canal).setVisibility(View.GONE);
+		}
+		TextView tv = (TextView)vc.findViewById(R.id.desc_canal);
+		if(canal.nombre == null || !canal.númeroEnElNombre())
+		{
+			StringBuilder sb = new StringBuilder();
+			sb.append(ctx.getString(R.string.channel_number, canal.numero));
+			if(canal.numeroVirtual != null)
+				sb.append(" (").append(canal.numeroVirtual).append(")");
+			String cadena = canal.cadena;
+			if(logo == 0 && cadena != null && !cadena.equals("IND") && !cadena.equals("INDE") && !cadena.equals("NONE") && !cadena.isEmpty())
+				sb.append(" - ").append(cadena);
+			tv.setText(sb.toString());
+		} else
+		{
+			tv.setVisibility(View.GONE);
+		}
+		return vc;
+	}
+}
@@ -0,0 +1,52 @@
+package ar.com.lichtmaier.antenas;
+
+import android.content.Context;
+
+import java.io.InputStream;
+
+/** Lee los archivos de antenas de los recursos de la aplicación. */
+class FuenteRecursos implements FuenteDeDatos
+{
+	private final Context ctx;
+
+	FuenteRecursos(Context ctx)
+	{
+		this.ctx = ctx;
+	}
+
+	@Override
+	public InputStream abrir(País país)
+	{
+		int res;
+		switch(país)
+		{
+			case AR:
+				res = R.raw.antenas_ar;
+				break;
+			case AU:
+				res = R.raw.antenas_au;
+				break;
+			case BR:
+				res = R.raw.antenas_br;
+				break;
+			case CA:
+				res = R.raw.antenas_ca;
+				break;
+			case NZ:
+				res = R.raw.antenas_nz;
+				break;
+			case UK:
+				res = R.raw.antenas_uk;
+				break;
+			case US:
+				res = R.raw.antenas_us;
+				break;
+			case UY:
+				res = R.raw.antenas_uy;
+				break;
+			default:
+				throw new RuntimeException(String.valueOf(país));
+		}
+		return ctx.getResources().openRawResource(res);
+	}
+}
@@ -9,6 +9,7 @@ import android.os.Bundle;
 import android.preference.PreferenceManager;
 import android.support.v4.app.Fragment;
 import android.support.v4.app.FragmentActivity;
+import android.support.v4.util.LruCache;
 import android.support.v7.app.ActionBar;
 import android.support.v7.app.AppCompatActivity;
 import android.support.v7.widget.*;
@@ -21,11 +22,12 @@ import com.google.android.gms.maps.GoogleMap;
 import com.google.android.gms.maps.SupportMapFragment;
 import com.google.android.gms.maps.model.*;
 
+import org.gavaghan.geodesy.GlobalCoordinates;
+
 import java.util.*;
 
 public class MapaActivity extends AppCompatActivity
 {
-	private static BitmapDescriptor íconoAntenita;
 	private Publicidad publicidad;
 
 	@Override
@@ -112,6 +114,8 @@ public class MapaActivity extends AppCompatActivity
 		private final Map<País, List<Marker>> países = new EnumMap<>(País.class);
 
 		private final Map<Marker, Antena> markerAAntena = new HashMap<>();
+		/** El filtro de las preferencias, para no armarlo cada vez que se mueve el mapa. */
+		private FiltroAntenas filtro = FiltroAntenas.TODAS;
 
 		public MapaFragment()
 		{
@@ -137,26 +141,39 @@ public class MapaActivity extends AppCompatActivity
 				return;
 			}
 			mapa.setMyLocationEnabled(true);
-			mapa.moveCamera(CameraUpdateFactory.zoomTo(10));
+			// Si se está recreando, el mapa ya recuerda dónde estaba la cámara.
+			if(savedInstanceState == null)
+				mapa.moveCamera(CameraUpdateFactory.zoomTo(10));
 			mapa.setOnInfoWindowClickListener(this);
 			mapa.setInfoWindowAdapter(this);
 			mapa.setOnCameraChangeListener(this);
 			Location loc = null;
-			if(AntenaActivity.coordsUsuario != null)
+			RepositorioAntenas repositorio = RepositorioAntenas.dameInstancia(act);
+			GlobalCoordinates coordsUsuario = repositorio.dameCoordenadas();
+			if(coordsUsuario != null)
 			{
-				mapa.moveCamera(CameraUpdateFactory.newLatLng(new LatLng(AntenaActivity.coordsUsuario.getLatitude(), AntenaActivity.coordsUsuario.getLongitude())));
+				if(savedInstanceState == null)
+					mapa.moveCamera(CameraUpdateFactory.newLatLng(new LatLng(coordsUsuario.getLatitude(), coordsUsuario.getLongitude())));
 				loc = new Location("*");
-				loc.setLatitude(AntenaActivity.coordsUsuario.getLatitude());
-				loc.setLongitude(AntenaActivity.coordsUsuario.getLongitude());
+				loc.setLatitude(coordsUsuario.getLatitude());
+				loc.setLongitude(coordsUsuario.getLongitude());
 			}
 			((MapaActivity)act).publicidad.load(loc);
-			if(íconoAntenita == null)
-				íconoAntenita = BitmapDescriptorFactory.fromResource(R.drawable.antena);
 			SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(act);
 			prefs.registerOnSharedPreferenceChangeListener(this);
-			for(País país : País.values())
-				if(prefs.getBoolean("mapa_país_" + país, false))
-					Antena.dameAntenas(act, país);
+			repositorio.cargar(dameHabilitados(prefs));
+			antenasDentro = DatosRetenidos.dameDatos(act).antenasEnMapa;
+			// Las antenas que ya estaban en el mapa antes de recrear la actividad se vuelven a poner sin consultar el índice.
+			filtro = RepositorioAntenas.dameFiltro(prefs);
+			Iterator<Antena> it = antenasDentro.iterator();
+			while(it.hasNext())
+			{
+				Antena antena = it.next();
+				if(prefs.getBoolean("mapa_país_" + antena.país, false) && filtro.acepta(antena))
+					agregarMarcador(act, antena);
+				else
+					it.remove();
+			}
 			act.findViewById(R.id.map).post(new Runnable() {
 				@Override
 				public void run()
@@ -181,7 +198,7 @@ public class MapaActivity extends AppCompatActivity
 				País país = País.valueOf(key.substring(10));
 				if(sharedPreferences.getBoolean(key, false))
 				{
-					Antena.dameAntenas(getActivity(), país);
+					RepositorioAntenas.dameInstancia(getActivity()).dameAntenas(país);
 					ponerMarcadores();
 				} else
 				{
@@ -193,6 +210,24 @@ public class MapaActivity extends AppCompatActivity
 							marker.remove();
 						}
 				}
+			} else if(key.startsWith("filtro_"))
+			{
+				// Se sacan las que ya no pasan el filtro y se agregan las que ahora sí.
+				filtro = RepositorioAntenas.dameFiltro(sharedPreferences);
+				Iterator<Map.Entry<Marker, Antena>> it = markerAAntena.entrySet().iterator();
+				while(it.hasNext())
+				{
+					Map.Entry<Marker, Antena> e = it.next();
+					if(filtro.acepta(e.getValue()))
+						continue;
+					List<Marker> markers = países.get(e.getValue().país);
+					if(markers != null)
+						markers.remove(e.getKey());
+					antenasDentro.remove(e.getValue());
+					e.getKey().remove();
+					it.remove();
+				}
+				ponerMarcadores();
 			}
 		}
 
@@ -201,13 +236,28 @@ public class MapaActivity extends AppCompatActivity
 			Activity act = getActivity();
 			if(act == null)
 				return;
+			long t = Métricas.empezar("ponerMarcadores");
+			try
+			{
+				ponerMarcadores(act);
+			} finally
+			{
+				Métricas.terminar("ponerMarcadores", t);
+			}
+		}
+
+		private void ponerMarcadores(Activity act)
+		{
 			SharedPreferences prefs = PreferenceManager.getDefaultSharedPreferences(act);
+			// Si faltaba memoria se pueden haber descargado países.
+			RepositorioAntenas.dameInstancia(act).cargar(dameHabilitados(prefs));
 			LatLngBounds latLngBounds = mapa.getProjection().getVisibleRegion().latLngBounds;
 			antenas_temp.clear();
 			Antena.antenasEnRectángulo(latLngBounds.northeast.latitude,
 					latLngBounds.southwest.longitude,
 					latLngBounds.southwest.latitude,
 					latLngBounds.northeast.longitude,
+					filtro,
 					antenas_temp);
 			for(Antena antena : antenas_temp)
 			{
@@ -215,21 +265,36 @@ public class MapaActivity extends AppCompatActivity
 					continue;
 				if(!antenasDentro.add(antena))
 					continue;
+				agregarMarcador(act, antena);
+			}
+		}
+
+		/** Devuelve los países que el usuario eligió mostrar en el mapa. */
+		private static Set<País> dameHabilitados(SharedPreferences prefs)
+		{
+			Set<País> países = EnumSet.noneOf(País.class);
+			for(País país : País.values())
+				if(prefs.getBoolean("mapa_país_" + país, false))
+					países.add(país);
+			return países;
+		}
 
-				Marker marker = mapa.addMarker(new MarkerOptions()
-						.position(antena.getLatLng())
-						.title(antena.dameNombre(getActivity()))
-						.icon(íconoAntenita));
-				markerAAntena.put(marker, antena);
+		private void agregarMarcador(Activity act, Antena antena)
+		{
+			// El título de verdad se calcula recién cuando se pide la ventana de información.
+			Marker marker = mapa.addMarker(new MarkerOptions()
+					.position(FormatoAntena.dameLatLng(antena))
+					.title(antena.descripción != null ? antena.descripción : "")
+					.icon(ÍconosMapa.dameÍcono(act, FormatoAntena.dameLogoPrincipal(antena))));
+			markerAAntena.put(marker, antena);
 
-				List<Marker> markers = países.get(antena.país);
-				if(markers == null)
-				{
-					markers = new ArrayList<>();
-					países.put(antena.país, markers);
-				}
-				markers.add(marker);
+			List<Marker> markers = países.get(antena.país);
+			if(markers == null)
+			{
+				markers = new ArrayList<>();
+				países.put(antena.país, markers);
 			}
+			markers.add(marker);
 		}
 
 		private static double max(double a, double b, double c, double d)
@@ -243,7 +308,10 @@ public class MapaActivity extends AppCompatActivity
 		}
 
 		final private List<Antena> antenas_temp = new ArrayList<>();
-		final private Set<Antena> antenasDentro = new HashSet<>();
+		private Set<Antena> antenasDentro;
+
+		/** Vistas de información ya armadas, para no inflarlas de nuevo en cada toque. */
+		final private LruCache<Antena, View> vistasInfo = new LruCache<>(16);
 
 		@Override
 		public void onCameraChange(CameraPosition cameraPosition)
@@ -255,7 +323,7 @@ public class MapaActivity extends AppCompatActivity
 		public void onInfoWindowClick(Marker marker)
 		{
 			Antena antena = markerAAntena.get(marker);
-			antena.mostrarInformacion(getActivity());
+			FormatoAntena.mostrarInformacion(getActivity(), antena);
 		}
 
 		@Override
@@ -266,11 +334,37 @@ public class MapaActivity extends AppCompatActivity
 
 		@Override
 		public View getInfoContents(Marker marker)
+		{
+			long t = Métricas.empezar("getInfoContents");
+			try
+			{
+				return dameContenidoInfo(marker);
+			} finally
+			{
+				Métricas.terminar("getInfoContents", t);
+			}
+		}
+
+		private View dameContenidoInfo(Marker marker)
 		{
 			Antena antena = markerAAntena.get(marker);
 			if(antena.canales == null)
+			{
+				marker.setTitle(FormatoAntena.dameNombre(getActivity(), antena));
 				return null;
-			boolean hayImágenes = antena.hayImágenes();
+			}
+			View v = vistasInfo.get(antena);
+			if(v == null)
+			{
+				v = crearVistaInfo(antena);
+				vistasInfo.put(antena, v);
+			}
+			return v;
+		}
+
+		private View crearVistaInfo(Antena antena)
+		{
+			boolean hayImágenes = FormatoAntena.hayImágenes(antena);
 			ContextThemeWrapper ctx = new ContextThemeWrapper(getActivity(), R.style.InfoMapa);
 			@SuppressLint("InflateParams")
 			View v = ((LayoutInflater)ctx.getSystemService(LAYOUT_INFLATER_SERVICE)).inflate(R.layout.info_mapa, null, false);
@@ -290,10 +384,10 @@ public class MapaActivity extends AppCompatActivity
 				for(int i = 0; i < (n+1) / 2 ; i++)
 				{
 					TableRow row = new TableRow(ctx);
-					row.addView(antena.canales.get(i * 2).dameViewCanal(ctx, row, hayImágenes));
+					row.addView(FormatoAntena.dameViewCanal(ctx, antena.canales.get(i * 2), row, hayImágenes));
 					if((i*2+1) < antena.canales.size())
 					{
-						View der = antena.canales.get(i * 2 + 1).dameViewCanal(ctx, row, hayImágenes);
+						View der = FormatoAntena.dameViewCanal(ctx, antena.canales.get(i * 2 + 1), row, hayImágenes);
 						der.setPadding((int)getResources().getDimension(der.getPaddingLeft() + R.dimen.paddingColumnasInfoMapa), der.getPaddingTop(), der.getPaddingRight(), der.getPaddingBottom());
 						row.addView(der);
 					}
@@ -303,7 +397,7 @@ public class MapaActivity extends AppCompatActivity
 			{
 				n = Math.min(antena.canales.size(), 4);
 				for(Canal canal : antena.canales)
-					l.addView(canal.dameViewCanal(ctx, l, hayImágenes));
+					l.addView(FormatoAntena.dameViewCanal(ctx, canal, l, hayImágenes));
 			}
 			if(n < antena.canales.size())
 			{
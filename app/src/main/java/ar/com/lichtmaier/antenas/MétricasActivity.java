@@ -0,0 +1,73 @@
+package ar.com.lichtmaier.antenas;
+
+import android.content.Intent;
+import android.os.Build;
+import android.os.Bundle;
+import android.support.v4.app.NavUtils;
+import android.support.v7.app.AppCompatActivity;
+import android.view.Menu;
+import android.view.MenuItem;
+import android.widget.TextView;
+
+/** Pantalla de diagnóstico con lo registrado en {@link Métricas}. Se llega tocando varias veces la versión
+ * en las preferencias.
+ */
+public class MétricasActivity extends AppCompatActivity
+{
+	@Override
+	protected void onCreate(Bundle savedInstanceState)
+	{
+		super.onCreate(savedInstanceState);
+		setContentView(R.layout.activity_metricas);
+		if(getSupportActionBar() != null)
+			getSupportActionBar().setDisplayHomeAsUpEnabled(true);
+	}
+
+	@Override
+	protected void onResume()
+	{
+		super.onResume();
+		mostrar();
+	}
+
+	private void mostrar()
+	{
+		((TextView)findViewById(R.id.metricas)).setText(dameInforme());
+	}
+
+	private String dameInforme()
+	{
+		return getString(R.string.app_name) + " " + BuildConfig.VERSION_NAME + " (" + BuildConfig.FLAVOR + ")\n"
+				+ Build.MANUFACTURER + " " + Build.MODEL + ", Android " + Build.VERSION.RELEASE + "\n\n"
+				+ Métricas.resumen();
+	}
+
+	@Override
+	public boolean onCreateOptionsMenu(Menu menu)
+	{
+		getMenuInflater().inflate(R.menu.metricas, menu);
+		return true;
+	}
+
+	@Override
+	public boolean onOptionsItemSelected(MenuItem item)
+	{
+		switch(item.getItemId())
+		{
+			case android.R.id.home:
+				NavUtils.navigateUpFromSameTask(this);
+				return true;
+			case R.id.action_compartir:
+				Intent intent = new Intent(Intent.ACTION_SEND);
+				intent.setType("text/plain");
+				intent.putExtra(Intent.EXTRA_TEXT, dameInforme());
+				startActivity(Intent.createChooser(intent, getString(R.string.action_compartir)));
+				return true;
+			case R.id.action_reiniciar:
+				Métricas.reiniciar();
+				mostrar();
+				return true;
+		}
+		return super.onOptionsItemSelected(item);
+	}
+}
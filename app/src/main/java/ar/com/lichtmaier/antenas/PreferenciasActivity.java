@@ -2,6 +2,7 @@ package ar.com.lichtmaier.antenas;
 
 import android.annotation.TargetApi;
 import android.app.ActionBar;
+import android.content.Intent;
 import android.os.Build;
 import android.os.Bundle;
 import android.preference.ListPreference;
@@ -53,6 +54,25 @@ public class PreferenciasActivity extends AppCompatPreferenceActivity
 		addPreferencesFromResource(R.xml.prefs);
 		bindPreferenceSummaryToValue(findPreference("max_dist"));
 		bindPreferenceSummaryToValue(findPreference("unit"));
+		bindPreferenceSummaryToValue(findPreference("filtro_canales"));
+		Preference versión = findPreference("versión");
+		versión.setSummary(BuildConfig.VERSION_NAME);
+		versión.setOnPreferenceClickListener(new Preference.OnPreferenceClickListener()
+		{
+			private int toques = 0;
+
+			@Override
+			public boolean onPreferenceClick(Preference preference)
+			{
+				// La pantalla de métricas queda escondida para no confundir a los usuarios.
+				if(++toques == 7)
+				{
+					toques = 0;
+					startActivity(new Intent(PreferenciasActivity.this, MétricasActivity.class));
+				}
+				return true;
+			}
+		});
 		for(País país : País.values())
 		{
 			int nombre;
@@ -85,7 +105,7 @@ public class PreferenciasActivity extends AppCompatPreferenceActivity
 				default:
 					throw new RuntimeException("pais " + país);
 			}
-			int cantAntenas = Antena.dameAntenas(this, país).size();
+			int cantAntenas = RepositorioAntenas.dameInstancia(this).dameAntenas(país).size();
 			findPreference("mapa_país_" + país)
 				.setSummary(getResources().getQuantityString(R.plurals.pref_país_summary,
 					cantAntenas, cantAntenas,
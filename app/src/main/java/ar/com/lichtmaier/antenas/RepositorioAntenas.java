@@ -0,0 +1,633 @@
+package ar.com.lichtmaier.antenas;
+
+import android.content.ComponentCallbacks2;
+import android.content.Context;
+import android.content.Intent;
+import android.content.SharedPreferences;
+import android.location.Criteria;
+import android.location.Location;
+import android.location.LocationManager;
+import android.net.Uri;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.Process;
+import android.preference.PreferenceManager;
+import android.text.TextUtils;
+import android.util.Log;
+import android.widget.Toast;
+
+import com.google.android.gms.common.ConnectionResult;
+import com.google.android.gms.location.LocationListener;
+import com.google.android.gms.location.LocationRequest;
+
+import org.gavaghan.geodesy.Ellipsoid;
+import org.gavaghan.geodesy.GeodeticCalculator;
+import org.gavaghan.geodesy.GlobalCoordinates;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/** Estado compartido por todas las pantallas: la ubicación del usuario, las antenas cargadas y las
+ * últimas antenas cercanas calculadas.
+ *
+ * Las actividades se suscriben mientras están visibles. La suscripción a la ubicación empieza con la
+ * primera y se corta cuando se va la última, así que pasar de una pantalla a otra no la reinicia.
+ */
+public class RepositorioAntenas implements LocationListener
+{
+	private static RepositorioAntenas instancia;
+
+	private final Context ctx;
+	private final FuenteDeDatos fuente;
+	private GlobalCoordinates coordsUsuario;
+	/** Desde dónde se buscaron las antenas cercanas. Las ubicaciones que no cambian cuáles se muestran ni su
+	 * orden mueven {@link #coordsUsuario}, para las distancias y las flechas, pero no ésta.
+	 */
+	private GlobalCoordinates coordsCercanas;
+	private Location últimaUbicación;
+	private boolean activo, conectado;
+	private final Handler handler = new Handler();
+
+	private final List<AntenaActivity> suscriptos = new ArrayList<>();
+
+	private LocationClientCompat locationClient;
+	private LocationManager locationManager;
+
+	/** Las últimas antenas cercanas, que sobreviven a las actividades: al rotar la pantalla no se vuelven a buscar. */
+	private final CercanasRetenidas cercanas = new CercanasRetenidas();
+
+	/** Decide cómo pedir la ubicación y qué ubicaciones nuevas se pueden ignorar. */
+	private final PolíticaUbicación política = new PolíticaUbicación();
+
+	private final android.location.LocationListener locationListener = new android.location.LocationListener() {
+		@Override
+		public void onStatusChanged(String provider, int status, Bundle extras) { }
+		@Override
+		public void onProviderEnabled(String provider) { }
+		@Override
+		public void onProviderDisabled(String provider) { }
+
+		@Override
+		public void onLocationChanged(Location location)
+		{
+			if(location.getAccuracy() > 300)
+				return;
+			RepositorioAntenas.this.onLocationChanged(location);
+		}
+	};
+
+	private RepositorioAntenas(Context ctx)
+	{
+		this.ctx = ctx;
+		// Se crea antes de cargar cualquier antena, así que es el lugar para conectar las métricas con systrace.
+		Métricas.ponerRastreador(Compat.dameRastreador());
+		fuente = new FuenteRecursos(ctx);
+		// Con cada versión nueva los datos pueden cambiar, así que las instantáneas viejas no sirven.
+		Antena.usarInstantáneas(new Instantáneas(new File(ctx.getFilesDir(), "instantaneas"),
+				BuildConfig.VERSION_NAME + "-" + BuildConfig.VERSION_CODE));
+		locationClient = new LocationClientCompat(ctx, this, pedido(política.dameModo()));
+	}
+
+	private static LocationRequest pedido(PolíticaUbicación.Modo modo)
+	{
+		int prioridad;
+		switch(modo)
+		{
+			case PRECISO:
+				prioridad = LocationRequest.PRIORITY_HIGH_ACCURACY;
+				break;
+			case NORMAL:
+				prioridad = LocationRequest.PRIORITY_BALANCED_POWER_ACCURACY;
+				break;
+			default:
+				prioridad = LocationRequest.PRIORITY_LOW_POWER;
+		}
+		return LocationRequest.create()
+				.setPriority(prioridad)
+				.setInterval(modo.intervalo)
+				.setFastestInterval(modo.intervaloMínimo)
+				.setSmallestDisplacement(modo.desplazamiento);
+	}
+
+	static RepositorioAntenas dameInstancia(Context ctx)
+	{
+		if(instancia == null)
+			instancia = new RepositorioAntenas(ctx.getApplicationContext());
+		return instancia;
+	}
+
+	/** La pantalla que está adelante, para lo que necesite mostrarle algo al usuario. Puede ser null. */
+	AntenaActivity dameActividad()
+	{
+		return suscriptos.isEmpty() ? null : suscriptos.get(suscriptos.size() - 1);
+	}
+
+	void suscribir(AntenaActivity act)
+	{
+		suscriptos.add(act);
+		handler.removeCallbacks(detener);
+		if(!activo)
+			iniciar();
+		else if(conectado)
+			act.ubicaciónConectada(últimaUbicación);
+		if(coordsUsuario != null)
+			act.nuevaUbicación();
+	}
+
+	void desuscribir(AntenaActivity act)
+	{
+		suscriptos.remove(act);
+		// Se espera un poco para no reconectar si es una rotación de pantalla.
+		if(suscriptos.isEmpty())
+			handler.postDelayed(detener, 2000);
+	}
+
+	private final Runnable detener = new Runnable()
+	{
+		@Override
+		public void run()
+		{
+			activo = false;
+			conectado = false;
+			if(locationClient != null)
+			{
+				locationClient.onPause();
+				locationClient.onStop();
+			}
+			if(locationManager != null)
+				locationManager.removeUpdates(locationListener);
+		}
+	};
+
+	private void iniciar()
+	{
+		activo = true;
+		if(locationClient != null)
+			locationClient.onStart();
+		if(locationManager != null)
+		{
+			Criteria criteria = new Criteria();
+			criteria.setAccuracy(Criteria.ACCURACY_COARSE);
+			criteria.setCostAllowed(true);
+			try
+			{
+				Compat.requestLocationUpdates(locationManager, 1000 * 60, 0, criteria, locationListener);
+			} catch(IllegalArgumentException e)
+			{
+				Log.e("antenas", "Error pidiendo updates de GPS", e);
+				Toast.makeText(ctx, ctx.getString(R.string.no_ubicacion), Toast.LENGTH_SHORT).show();
+				AntenaActivity act = dameActividad();
+				if(act != null)
+					act.finish();
+			}
+		}
+	}
+
+	public GlobalCoordinates dameCoordenadas()
+	{
+		return coordsUsuario;
+	}
+
+	void ponerCoordenadas(GlobalCoordinates coords)
+	{
+		Métricas.contar("ubicaciones");
+		if(coords.equals(coordsUsuario) && !ubicaciónVieja)
+			return;
+		coordsUsuario = coords;
+		coordsCercanas = coords;
+		// Las antenas restauradas son provisorias: hay que buscarlas aunque la ubicación sea la misma.
+		if(ubicaciónVieja)
+			cercanas.olvidar();
+		ubicaciónVieja = false;
+		for(AntenaActivity act : new ArrayList<>(suscriptos))
+			act.nuevaUbicación();
+	}
+
+	/** La distancia y el rumbo desde la ubicación anterior, para no reservar un arreglo en cada ubicación. */
+	private final float[] camino = new float[2];
+
+	@Override
+	public void onLocationChanged(Location location)
+	{
+		Arranque.fase("primera ubicación");
+		Location anterior = últimaUbicación;
+		últimaUbicación = location;
+		// La velocidad y el rumbo informados o, si faltan, los que resultan del camino desde la ubicación anterior.
+		float velocidad = location.hasSpeed() ? location.getSpeed() : Float.NaN;
+		float rumbo = location.hasBearing() ? location.getBearing() : Float.NaN;
+		if((Float.isNaN(velocidad) || Float.isNaN(rumbo)) && anterior != null && location.getTime() > anterior.getTime())
+		{
+			Location.distanceBetween(anterior.getLatitude(), anterior.getLongitude(), location.getLatitude(), location.getLongitude(), camino);
+			if(Float.isNaN(velocidad))
+				velocidad = camino[0] * 1000f / (location.getTime() - anterior.getTime());
+			if(Float.isNaN(rumbo))
+				rumbo = camino[1];
+		}
+		precargarEnCamino(location, velocidad, rumbo);
+		ajustarPedido(velocidad);
+		GlobalCoordinates coords = new GlobalCoordinates(location.getLatitude(), location.getLongitude());
+		// Si no cambian las antenas que se muestran ni su orden, no se buscan de nuevo: sólo se escriben las distancias.
+		if(coordsUsuario != null && !ubicaciónVieja && !política.cambiaAlgo(coords))
+		{
+			Métricas.contar("ubicaciones ignoradas");
+			coordsUsuario = coords;
+			for(AntenaActivity act : new ArrayList<>(suscriptos))
+				act.actualizarDistancias();
+			return;
+		}
+		ponerCoordenadas(coords);
+	}
+
+	/** Pide la ubicación más o menos seguido según lo lejos que estén las antenas y lo rápido que se mueva el usuario. */
+	private void ajustarPedido(float velocidad)
+	{
+		PolíticaUbicación.Modo antes = política.dameModo();
+		PolíticaUbicación.Modo modo = política.elegirModo(velocidad, System.currentTimeMillis());
+		if(modo == antes || locationClient == null)
+			return;
+		Log.i("antenas", "ubicación: " + antes + " -> " + modo);
+		Métricas.contar("ubicación " + modo);
+		locationClient.cambiarPedido(pedido(modo));
+	}
+
+	void onConnected(Bundle bundle)
+	{
+		conectado = true;
+		Location location = locationClient.getLastLocation();
+		if(location != null)
+			onLocationChanged(location);
+		locationClient.onConnected();
+		for(AntenaActivity act : new ArrayList<>(suscriptos))
+			act.ubicaciónConectada(location);
+	}
+
+	void onConnectionFailed(ConnectionResult r)
+	{
+		AntenaActivity act = dameActividad();
+		if(r.hasResolution())
+		{
+			if(act != null)
+				act.resolverFalloDeConexión(r);
+			return;
+		}
+		Log.e("antenas", "Play Services no disponible: " + r + ". No importa, sobreviviremos.");
+
+		if(act != null)
+			act.pedirCambioConfiguración();
+
+		locationManager = (LocationManager)ctx.getSystemService(Context.LOCATION_SERVICE);
+		locationClient = null;
+		if(coordsUsuario == null)
+		{
+			Location location = locationManager.getLastKnownLocation(LocationManager.GPS_PROVIDER);
+			if(location == null || location.getAccuracy() >= 300)
+				location = locationManager.getLastKnownLocation(LocationManager.NETWORK_PROVIDER);
+			if(location != null && location.getAccuracy() < 300)
+				onLocationChanged(location);
+		}
+		if(activo)
+			iniciar();
+	}
+
+	void reconectar()
+	{
+		if(locationClient != null)
+			locationClient.connect();
+	}
+
+	boolean onActivityResult(int requestCode, int resultCode, Intent data)
+	{
+		return locationClient != null && locationClient.onActivityResult(requestCode, resultCode, data);
+	}
+
+	/** Como {@link Antena#dameAntenasCerca(FuenteDeDatos, GlobalCoordinates, int, boolean, FiltroAntenas)} desde
+	 * la ubicación actual, pero reusa el último resultado si nada cambió.
+	 */
+	List<Antena> dameAntenasCerca(int maxDist, boolean mostrarMenos, FiltroAntenas filtro)
+	{
+		List<Antena> antenas = cercanas.dame(fuente, coordsCercanas, maxDist, mostrarMenos, filtro);
+		if(cercanas.buscó())
+		{
+			política.calculadas(coordsCercanas, antenas, Antena.dameDistanciaSiguiente(), maxDist, mostrarMenos);
+			recordarPaíses(coordsCercanas);
+		}
+		return antenas;
+	}
+
+	/** Si las coordenadas y las antenas cercanas son las de la sesión anterior, hasta que llegue una ubicación. */
+	private boolean ubicaciónVieja = false;
+
+	boolean esUbicaciónVieja()
+	{
+		return ubicaciónVieja;
+	}
+
+	/** Guarda las últimas antenas cercanas, con sus distancias, rumbos y los textos de cada fila, para mostrarlas
+	 * enseguida en el próximo arranque sin tener que leer las antenas.
+	 */
+	void guardarCercanas()
+	{
+		List<Antena> antenasCerca = cercanas.dameAntenas();
+		if(antenasCerca == null || ubicaciónVieja)
+			return;
+		GlobalCoordinates coordsAntenasCerca = cercanas.dameCoordenadas();
+		StringBuilder sb = new StringBuilder();
+		sb.append(BuildConfig.VERSION_CODE)
+				.append(';').append(coordsAntenasCerca.getLatitude())
+				.append(';').append(coordsAntenasCerca.getLongitude())
+				.append(';').append(cercanas.dameMaxDist())
+				.append(';').append(cercanas.muestraMenos())
+				.append(';').append(cercanas.dameFiltro())
+				.append(';').append(ctx.getResources().getConfiguration().locale);
+		for(Antena antena : antenasCerca)
+		{
+			GlobalCoordinates c = antena.dameCoordenadas();
+			CharSequence detalle = FormatoAntena.dameDetalleCanales(ctx, antena);
+			sb.append(';').append(antena.país).append(',').append(antena.index)
+					.append(',').append(c.getLatitude()).append(',').append(c.getLongitude())
+					.append(',').append(antena.distanceTo(coordsAntenasCerca))
+					.append(',').append(antena.rumboDesde(coordsAntenasCerca))
+					.append(',').append(codificar(antena.descripción))
+					.append(',').append(codificar(detalle == null ? null : detalle.toString()));
+		}
+		Compat.applyPreferences(PreferenceManager.getDefaultSharedPreferences(ctx).edit().putString("ultimas_cercanas", sb.toString()));
+	}
+
+	private static String codificar(String s)
+	{
+		return s == null ? "" : Uri.encode(s);
+	}
+
+	private static String decodificar(String s)
+	{
+		return s.isEmpty() ? null : Uri.decode(s);
+	}
+
+	/** Si todavía no hay ubicación, usa las antenas cercanas guardadas por {@link #guardarCercanas()}, que
+	 * quedan marcadas como viejas hasta que llegue una ubicación nueva.
+	 *
+	 * <p>Como corre en el hilo principal antes de mostrar la actividad, no lee ninguna antena: cada fila se
+	 * arma con una antena provisoria con lo que se guardó. Al llegar la ubicación se reemplazan por las
+	 * del índice.</p>
+	 *
+	 * @return si se restauraron
+	 */
+	boolean restaurarCercanas(int maxDist, boolean mostrarMenos, FiltroAntenas filtro)
+	{
+		if(coordsUsuario != null)
+			return false;
+		String guardadas = PreferenceManager.getDefaultSharedPreferences(ctx).getString("ultimas_cercanas", null);
+		if(guardadas == null)
+			return false;
+		long t = Métricas.empezar("restaurarCercanas");
+		try
+		{
+			String[] partes = guardadas.split(";");
+			// Con otra versión los índices pueden apuntar a otras antenas, y con otro idioma los textos no sirven.
+			Locale locale = ctx.getResources().getConfiguration().locale;
+			if(Integer.parseInt(partes[0]) != BuildConfig.VERSION_CODE
+					|| Integer.parseInt(partes[3]) != maxDist || Boolean.parseBoolean(partes[4]) != mostrarMenos
+					|| !partes[5].equals(filtro.toString()) || !partes[6].equals(locale.toString()))
+				return false;
+			GlobalCoordinates coords = new GlobalCoordinates(Double.parseDouble(partes[1]), Double.parseDouble(partes[2]));
+			List<Antena> antenas = new ArrayList<>(partes.length - 7);
+			for(int i = 7 ; i < partes.length ; i++)
+			{
+				String[] a = partes[i].split(",", -1);
+				Antena antena = new Antena(decodificar(a[6]), Double.parseDouble(a[2]), Double.parseDouble(a[3]),
+						Integer.parseInt(a[1]), País.valueOf(a[0]), null);
+				antena.detalleCanales = decodificar(a[7]);
+				antena.localeDetalleCanales = locale;
+				antena.recordarCálculo(coords, Double.parseDouble(a[4]), Double.parseDouble(a[5]));
+				antenas.add(antena);
+			}
+			coordsUsuario = coords;
+			coordsCercanas = coords;
+			ubicaciónVieja = true;
+			cercanas.retener(antenas, coords, maxDist, mostrarMenos, filtro);
+			return true;
+		} catch(RuntimeException e)
+		{
+			Log.w("antenas", "no se pudieron restaurar las antenas cercanas: " + guardadas, e);
+			Compat.applyPreferences(PreferenceManager.getDefaultSharedPreferences(ctx).edit().remove("ultimas_cercanas"));
+			return false;
+		} finally
+		{
+			Métricas.terminar("restaurarCercanas", t);
+		}
+	}
+
+	/** Libera memoria cuando el sistema la pide: olvida los textos ya armados y, si la memoria escasea,
+	 * descarga los países lejanos a la ubicación. Todo se vuelve a cargar cuando haga falta.
+	 *
+	 * @param nivel el nivel de {@link ComponentCallbacks2#onTrimMemory(int)}
+	 */
+	void liberarMemoria(int nivel)
+	{
+		Métricas.contar("liberarMemoria(" + nivel + ")");
+		Antena.olvidarTextos();
+		if(nivel < ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW || nivel == ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN)
+			return;
+		Set<País> cerca = EnumSet.noneOf(País.class);
+		if(coordsUsuario != null)
+			cerca.addAll(Antena.paísesCerca(coordsUsuario.getLatitude(), coordsUsuario.getLongitude()));
+		if(cercanas.dameAntenas() != null)
+			for(Antena antena : cercanas.dameAntenas())
+				cerca.add(antena.país);
+		for(País país : Antena.dameCargados())
+		{
+			if(cerca.contains(país))
+				continue;
+			Antena.descargar(país);
+			política.olvidar();
+			Métricas.contar("países descargados");
+			Log.i("antenas", "memoria escasa (" + nivel + "), se descargó " + país);
+		}
+	}
+
+	private String paísesRecordados = null;
+
+	/** Guarda los países de la ubicación, para precargarlos en el próximo arranque. */
+	private void recordarPaíses(GlobalCoordinates coords)
+	{
+		String países = TextUtils.join(",", Antena.paísesCerca(coords.getLatitude(), coords.getLongitude()));
+		if(países.equals(paísesRecordados))
+			return;
+		paísesRecordados = países;
+		Compat.applyPreferences(PreferenceManager.getDefaultSharedPreferences(ctx).edit().putString("paises_cercanos", países));
+	}
+
+	/** Empieza a cargar en segundo plano los países de la última vez, para que en general ya estén listos
+	 * cuando llega la primera ubicación.
+	 */
+	void precargar()
+	{
+		String últimos = PreferenceManager.getDefaultSharedPreferences(ctx).getString("paises_cercanos", null);
+		if(últimos == null || últimos.isEmpty())
+			return;
+		paísesRecordados = últimos;
+		Set<País> países = EnumSet.noneOf(País.class);
+		for(String país : últimos.split(","))
+		{
+			try
+			{
+				países.add(País.valueOf(país));
+			} catch(IllegalArgumentException e)
+			{
+				Log.w("antenas", "país desconocido en las preferencias: " + país);
+			}
+		}
+		cargarEnSegundoPlano(países, "precargar");
+	}
+
+	/** Los países que se están cargando en segundo plano. Sólo se usa desde el hilo principal. */
+	private final Set<País> enCarga = EnumSet.noneOf(País.class);
+
+	private void cargarEnSegundoPlano(Set<País> países, final String sección)
+	{
+		final Set<País> aCargar = EnumSet.copyOf(países);
+		aCargar.removeAll(enCarga);
+		if(aCargar.isEmpty())
+			return;
+		enCarga.addAll(aCargar);
+		new Thread(sección)
+		{
+			@Override
+			public void run()
+			{
+				Process.setThreadPriority(Process.THREAD_PRIORITY_BACKGROUND);
+				long t = Métricas.empezar(sección);
+				try
+				{
+					Antena.cargar(fuente, aCargar);
+				} finally
+				{
+					Métricas.terminar(sección, t);
+					handler.post(new Runnable()
+					{
+						@Override
+						public void run()
+						{
+							enCarga.removeAll(aCargar);
+						}
+					});
+				}
+			}
+		}.start();
+	}
+
+	/** Velocidad mínima para proyectar la posición, en m/s (unos 18 km/h). */
+	private static final float VELOCIDAD_MÍNIMA = 5;
+
+	/** Distancia máxima entre los puntos de la proyección, en metros. */
+	private static final double PASO_PROYECCIÓN = 10000;
+
+	/** Si el usuario está viajando, proyecta su posición según la velocidad y el rumbo y carga de antemano
+	 * los países por los que va a pasar, para que la búsqueda no se frene al cruzar la frontera.
+	 *
+	 * @param velocidad en m/s, o NaN si no se sabe
+	 * @param rumbo en grados, o NaN si no se sabe
+	 */
+	private void precargarEnCamino(Location nueva, float velocidad, float rumbo)
+	{
+		if(Float.isNaN(rumbo) || !(velocidad >= VELOCIDAD_MÍNIMA))
+			return;
+		double distancia = velocidad * (double)ctx.getResources().getInteger(R.integer.horizonte_precarga);
+		int pasos = (int)Math.ceil(distancia / PASO_PROYECCIÓN);
+		GlobalCoordinates desde = new GlobalCoordinates(nueva.getLatitude(), nueva.getLongitude());
+		Set<País> cargados = Antena.dameCargados();
+		Set<País> faltan = EnumSet.noneOf(País.class);
+		for(int i = 1 ; i <= pasos ; i++)
+		{
+			GlobalCoordinates c = GeodeticCalculator.calculateEndingGlobalCoordinates(Ellipsoid.WGS84, desde, rumbo, distancia * i / pasos);
+			for(País país : Antena.paísesCerca(c.getLatitude(), c.getLongitude()))
+				if(!cargados.contains(país))
+					faltan.add(país);
+		}
+		if(!faltan.isEmpty())
+		{
+			Log.i("antenas", "viajando a " + velocidad + " m/s con rumbo " + rumbo + ", se precarga " + faltan);
+			Métricas.contar("precargas en camino");
+			cargarEnSegundoPlano(faltan, "precargarEnCamino");
+		}
+	}
+
+	List<Antena> dameAntenas(País país)
+	{
+		return Antena.dameAntenas(fuente, país);
+	}
+
+	/** Carga varios países a la vez. */
+	void cargar(Set<País> países)
+	{
+		Antena.cargar(fuente, países);
+	}
+
+	Antena dameAntena(País país, int index)
+	{
+		return Antena.dameAntena(fuente, país, index);
+	}
+
+	/** Las antenas de los resultados de una búsqueda, sin cargar sus países. */
+	List<Antena> dameAntenasSueltas(List<ÍndiceCanales.Resultado> resultados)
+	{
+		return Antena.dameAntenasSueltas(fuente, resultados);
+	}
+
+	/** Arma el filtro elegido en las preferencias: las cadenas marcadas ("filtro_cadena_...") y el rango de
+	 * canales ("filtro_canales").
+	 */
+	static FiltroAntenas dameFiltro(SharedPreferences prefs)
+	{
+		Set<String> cadenas = new HashSet<>();
+		for(Map.Entry<String, ?> e : prefs.getAll().entrySet())
+			if(e.getKey().startsWith("filtro_cadena_") && Boolean.TRUE.equals(e.getValue()))
+				cadenas.add(e.getKey().substring(14));
+		int mínimo = 0, máximo = Integer.MAX_VALUE;
+		String canales = prefs.getString("filtro_canales", "todos");
+		int guión = canales.indexOf('-');
+		if(guión > 0)
+		{
+			try
+			{
+				mínimo = Integer.parseInt(canales.substring(0, guión));
+				máximo = Integer.parseInt(canales.substring(guión + 1));
+			} catch(NumberFormatException e)
+			{
+				Log.w("antenas", "rango de canales inválido en las preferencias: " + canales);
+			}
+		}
+		return new FiltroAntenas(cadenas, mínimo, máximo);
+	}
+
+	private ÍndiceCanales índiceCanales;
+
+	/** Devuelve el índice para buscar canales. La primera vez lo lee de los assets, donde lo deja la
+	 * compilación, así que conviene llamarlo fuera del hilo principal.
+	 */
+	synchronized ÍndiceCanales dameÍndiceCanales() throws IOException
+	{
+		if(índiceCanales == null)
+		{
+			long t = Métricas.empezar("leer índice de canales");
+			InputStream in = ctx.getAssets().open("canales.idx");
+			try
+			{
+				índiceCanales = ÍndiceCanales.leer(in);
+			} finally
+			{
+				in.close();
+				Métricas.terminar("leer índice de canales", t);
+			}
+		}
+		return índiceCanales;
+	}
+}
@@ -1,6 +1,7 @@
 package ar.com.lichtmaier.antenas;
 
 import android.os.Bundle;
+import android.util.Log;
 import android.view.View;
 import android.view.ViewGroup;
 import android.view.ViewTreeObserver;
@@ -27,12 +28,29 @@ public class UnaAntenaActivity extends AntenaActivity
 	private FlechaView flecha;
 	final private List<View> vistasAnimadas = new ArrayList<>();
 
+	/** La antena viene entera en el Intent; si no se puede leer (por ejemplo, de una versión anterior) se
+	 * busca por país y número de orden.
+	 */
+	private Antena leerAntena(Bundle bundle)
+	{
+		try
+		{
+			Antena a = (Antena)bundle.getSerializable(PACKAGE + ".antena");
+			if(a != null)
+				return a;
+		} catch(RuntimeException e)
+		{
+			Log.w("antenas", "no se pudo leer la antena del intent", e);
+		}
+		return repositorio.dameAntena(País.valueOf(bundle.getString(PACKAGE + ".antenaPaís")), bundle.getInt(PACKAGE + ".antenaIndex"));
+	}
+
 	@Override
 	protected void onCreate(Bundle savedInstanceState)
 	{
 		super.onCreate(savedInstanceState);
 		Bundle bundle = getIntent().getExtras();
-		antena = Antena.dameAntena(this, País.valueOf(bundle.getString("ar.com.lichtmaier.antenas.antenaPaís")), bundle.getInt("ar.com.lichtmaier.antenas.antenaIndex"));
+		antena = leerAntena(bundle);
 		final TextView antenaDesc = (TextView) findViewById(R.id.antena_desc);
 		if(antena.descripción != null)
 			antenaDesc.setText(antena.descripción);
@@ -55,10 +73,10 @@ public class UnaAntenaActivity extends AntenaActivity
 			ViewGroup p = (ViewGroup)findViewById(R.id.columna_derecha);
 			if(p == null)
 				p = (ViewGroup)findViewById(R.id.principal);
-			boolean hayImágenes = antena.hayImágenes();
+			boolean hayImágenes = FormatoAntena.hayImágenes(antena);
 			for(Canal canal : antena.canales)
 			{
-				View vc = canal.dameViewCanal(this, p, hayImágenes);
+				View vc = FormatoAntena.dameViewCanal(this, canal, p, hayImágenes);
 				p.addView(vc);
 				if(p.getId() != R.id.columna_derecha)
 					vistasAnimadas.add(vc);
@@ -260,14 +278,23 @@ public class UnaAntenaActivity extends AntenaActivity
 	@Override
 	protected void nuevaUbicación()
 	{
-		if(antena != null)
+		// Desde la búsqueda se puede llegar antes de tener ubicación.
+		if(antena != null && repositorio.dameCoordenadas() != null)
 			ponéDistancia(antena, (TextView) findViewById(R.id.antena_dist));
 	}
 
+	@Override
+	protected void actualizarDistancias()
+	{
+		nuevaUbicación();
+	}
+
 	@Override
 	void nuevaOrientación(double brújula)
 	{
-		double rumbo = antena.rumboDesde(coordsUsuario);
+		if(repositorio.dameCoordenadas() == null)
+			return;
+		double rumbo = antena.rumboDesde(repositorio.dameCoordenadas());
 		FlechaView f = (FlechaView)findViewById(R.id.flecha);
 		ángulo = rumbo - brújula;
 		f.setÁngulo(ángulo);
@@ -0,0 +1,83 @@
+package ar.com.lichtmaier.antenas;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import android.graphics.Canvas;
+import android.graphics.drawable.Drawable;
+import android.support.v4.content.ContextCompat;
+import android.support.v4.util.LruCache;
+
+import com.google.android.gms.maps.model.BitmapDescriptor;
+import com.google.android.gms.maps.model.BitmapDescriptorFactory;
+
+/** Íconos para los marcadores del mapa, uno por cadena.
+ *
+ * Los {@link BitmapDescriptor} se generan una sola vez por cadena y densidad de pantalla, así que
+ * agregar marcadores no crea bitmaps.
+ */
+final class ÍconosMapa
+{
+	/** Alcanza para todos los logos de {@link FormatoAntena#dameLogo(String)} más el ícono genérico. */
+	final private static LruCache<Long, BitmapDescriptor> cache = new LruCache<>(20);
+
+	/** Proporción del ícono de la antena que ocupa el logo de la cadena. */
+	final private static float ESCALA_LOGO = .6f;
+
+	private ÍconosMapa() { }
+
+	/** Devuelve el ícono para una antena cuya cadena principal tiene el logo indicado.
+	 *
+	 * @param ctx un contexto
+	 * @param logo el recurso del logo de la cadena, o 0 para el ícono genérico
+	 * @return el ícono
+	 */
+	static BitmapDescriptor dameÍcono(Context ctx, int logo)
+	{
+		Resources res = ctx.getResources();
+		long clave = ((long)res.getDisplayMetrics().densityDpi << 32) | (logo & 0xffffffffL);
+		BitmapDescriptor ícono = cache.get(clave);
+		if(ícono == null)
+		{
+			ícono = (logo == 0)
+					? BitmapDescriptorFactory.fromResource(R.drawable.antena)
+					: BitmapDescriptorFactory.fromBitmap(componer(ctx, logo));
+			cache.put(clave, ícono);
+		}
+		return ícono;
+	}
+
+	private static Bitmap componer(Context ctx, int logo)
+	{
+		Bitmap antena = BitmapFactory.decodeResource(ctx.getResources(), R.drawable.antena);
+		int ancho = antena.getWidth(), alto = antena.getHeight();
+		Bitmap bitmap = Bitmap.createBitmap(ancho, alto, Bitmap.Config.ARGB_8888);
+		Canvas canvas = new Canvas(bitmap);
+		canvas.drawBitmap(antena, 0, 0, null);
+		antena.recycle();
+
+		Drawable d = ContextCompat.getDrawable(ctx, logo);
+		int lado = (int)(Math.min(ancho, alto) * ESCALA_LOGO);
+		int w = d.getIntrinsicWidth(), h = d.getIntrinsicHeight();
+		if(w > 0 && h > 0)
+		{
+			// Se respeta la proporción del logo.
+			if(w > h)
+			{
+				h = lado * h / w;
+				w = lado;
+			} else
+			{
+				w = lado * w / h;
+				h = lado;
+			}
+		} else
+		{
+			w = h = lado;
+		}
+		d.setBounds(ancho - w, alto - h, ancho, alto);
+		d.draw(canvas);
+		return bitmap;
+	}
+}
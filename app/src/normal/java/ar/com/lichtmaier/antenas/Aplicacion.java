@@ -10,6 +10,29 @@ public class Aplicacion extends Application
 {
 	private Tracker tracker;
 
+	@Override
+	public void onCreate()
+	{
+		super.onCreate();
+		Arranque.empezar();
+		RepositorioAntenas.dameInstancia(this).precargar();
+		Arranque.fase("aplicación");
+	}
+
+	@Override
+	public void onTrimMemory(int level)
+	{
+		super.onTrimMemory(level);
+		RepositorioAntenas.dameInstancia(this).liberarMemoria(level);
+	}
+
+	@Override
+	public void onLowMemory()
+	{
+		super.onLowMemory();
+		RepositorioAntenas.dameInstancia(this).liberarMemoria(TRIM_MEMORY_COMPLETE);
+	}
+
 	private Tracker getTracker()
 	{
 		if(tracker == null)
@@ -24,14 +47,37 @@ public class Aplicacion extends Application
 		return tracker;
 	}
 
-	void reportActivityStart(Activity act)
+	/* Inicializar Analytics tarda, así que espera a que se muestren las antenas. */
+	void reportActivityStart(final Activity act)
 	{
-		getTracker();
-		GoogleAnalytics.getInstance(this).reportActivityStart(act);
+		Arranque.cuandoTermine(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				long t = Métricas.empezar("analytics");
+				try
+				{
+					getTracker();
+					GoogleAnalytics.getInstance(Aplicacion.this).reportActivityStart(act);
+				} finally
+				{
+					Métricas.terminar("analytics", t);
+				}
+				Arranque.fase("analytics");
+			}
+		});
 	}
 
-	void reportActivityStop(Activity act)
+	void reportActivityStop(final Activity act)
 	{
-		GoogleAnalytics.getInstance(this).reportActivityStop(act);
+		Arranque.cuandoTermine(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				GoogleAnalytics.getInstance(Aplicacion.this).reportActivityStop(act);
+			}
+		});
 	}
 }
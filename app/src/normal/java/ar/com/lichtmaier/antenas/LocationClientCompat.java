@@ -1,6 +1,7 @@
 package ar.com.lichtmaier.antenas;
 
 import android.app.Activity;
+import android.content.Context;
 import android.content.Intent;
 import android.content.IntentSender;
 import android.location.Location;
@@ -18,17 +19,17 @@ import com.google.android.gms.location.*;
 public class LocationClientCompat implements GoogleApiClient.ConnectionCallbacks, GoogleApiClient.OnConnectionFailedListener
 {
 	private final GoogleApiClient google;
-	private final AntenaActivity activity;
-	private final LocationRequest locationRequest;
+	private final RepositorioAntenas repositorio;
+	private LocationRequest locationRequest;
 	private final int REQUEST_CHECK_SETTINGS = 9988;
 	private static boolean noPreguntar;
 
-	public LocationClientCompat(AntenaActivity activity, LocationRequest locationRequest)
+	public LocationClientCompat(Context ctx, RepositorioAntenas repositorio, LocationRequest locationRequest)
 	{
-		this.activity = activity;
+		this.repositorio = repositorio;
 		this.locationRequest = locationRequest;
 		locationRequest.setMaxWaitTime(locationRequest.getInterval() * 6);
-		google = new GoogleApiClient.Builder(activity).addApi(LocationServices.API)
+		google = new GoogleApiClient.Builder(ctx).addApi(LocationServices.API)
 			.addConnectionCallbacks(this)
 			.addOnConnectionFailedListener(this)
 			.build();
@@ -50,7 +51,7 @@ public class LocationClientCompat implements GoogleApiClient.ConnectionCallbacks
 	public void onPause()
 	{
 		if(google.isConnected())
-			LocationServices.FusedLocationApi.removeLocationUpdates(google, activity);
+			LocationServices.FusedLocationApi.removeLocationUpdates(google, locationCallback);
 	}
 
 	public void onStop()
@@ -58,6 +59,18 @@ public class LocationClientCompat implements GoogleApiClient.ConnectionCallbacks
 		google.disconnect();
 	}
 
+	/** Cambia cada cuánto y con qué precisión se pide la ubicación. */
+	public void cambiarPedido(LocationRequest locationRequest)
+	{
+		locationRequest.setMaxWaitTime(locationRequest.getInterval() * 6);
+		this.locationRequest = locationRequest;
+		if(google.isConnected())
+		{
+			LocationServices.FusedLocationApi.removeLocationUpdates(google, locationCallback);
+			LocationServices.FusedLocationApi.requestLocationUpdates(google, locationRequest, locationCallback, Looper.getMainLooper());
+		}
+	}
+
 	public Location getLastLocation()
 	{
 		return LocationServices.FusedLocationApi.getLastLocation(google);
@@ -76,7 +89,7 @@ public class LocationClientCompat implements GoogleApiClient.ConnectionCallbacks
 	@Override
 	public void onConnected(Bundle bundle)
 	{
-		activity.onConnected(bundle);
+		repositorio.onConnected(bundle);
 
 		verificarConfiguración();
 	}
@@ -93,7 +106,8 @@ public class LocationClientCompat implements GoogleApiClient.ConnectionCallbacks
 			public void onResult(LocationSettingsResult result)
 			{
 				Status status = result.getStatus();
-				if(status.getStatusCode() == LocationSettingsStatusCodes.RESOLUTION_REQUIRED && !noPreguntar && !activity.huboSavedInstanceState)
+				AntenaActivity activity = repositorio.dameActividad();
+				if(activity != null && status.getStatusCode() == LocationSettingsStatusCodes.RESOLUTION_REQUIRED && !noPreguntar && !activity.huboSavedInstanceState)
 				{
 					try
 					{
@@ -115,7 +129,7 @@ public class LocationClientCompat implements GoogleApiClient.ConnectionCallbacks
 	@Override
 	public void onConnectionFailed(ConnectionResult connectionResult)
 	{
-		activity.onConnectionFailed(connectionResult);
+		repositorio.onConnectionFailed(connectionResult);
 	}
 
 	public boolean onActivityResult(int requestCode, int resultCode, Intent data)
@@ -141,7 +155,7 @@ public class LocationClientCompat implements GoogleApiClient.ConnectionCallbacks
 		@Override
 		public void onLocationResult(LocationResult result)
 		{
-			activity.onLocationChanged(result.getLastLocation());
+			repositorio.onLocationChanged(result.getLastLocation());
 		}
 	};
 }
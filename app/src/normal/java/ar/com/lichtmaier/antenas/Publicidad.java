@@ -9,14 +9,41 @@ import com.google.android.gms.ads.AdRequest;
 import com.google.android.gms.ads.AdSize;
 import com.google.android.gms.ads.AdView;
 
+/** El banner de AdMob. Crear el {@link AdView} inicializa el SDK, que es lento, así que se hace cuando
+ * termina el arranque ({@link Arranque}); mientras tanto se recuerda lo que se le pidió.
+ */
 class Publicidad
 {
 	private AdView adView;
+	private boolean pausada, destruida, cargar;
+	private Location ubicación;
 
-	Publicidad(Activity act, String adUnitId)
+	Publicidad(final Activity act, final String adUnitId)
 	{
 		if(act instanceof UnaAntenaActivity)
 			return;
+		Arranque.cuandoTermine(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+				if(destruida)
+					return;
+				long t = Métricas.empezar("publicidad");
+				try
+				{
+					crear(act, adUnitId);
+				} finally
+				{
+					Métricas.terminar("publicidad", t);
+				}
+				Arranque.fase("publicidad");
+			}
+		});
+	}
+
+	private void crear(Activity act, String adUnitId)
+	{
 		adView = new AdView(act);
 		adView.setAdUnitId(adUnitId);
 		adView.setAdSize(AdSize.BANNER);
@@ -24,12 +51,20 @@ class Publicidad
 		LinearLayout.LayoutParams params = new LinearLayout.LayoutParams(ViewGroup.LayoutParams.MATCH_PARENT,
 				(int)(50 * act.getResources().getDisplayMetrics().density), 0);
 		v.addView(adView, params);
+		if(cargar)
+			load(ubicación);
+		if(pausada)
+			adView.pause();
 	}
 
 	void load(Location loc)
 	{
 		if(adView == null)
+		{
+			cargar = true;
+			ubicación = loc;
 			return;
+		}
 		AdRequest.Builder builder = crearAdRequestBuilder()
 				.addKeyword("antenna")
 				.addKeyword("tv")
@@ -54,18 +89,21 @@ class Publicidad
 
 	void onPause()
 	{
+		pausada = true;
 		if(adView != null)
 			adView.pause();
 	}
 
 	void onResume()
 	{
+		pausada = false;
 		if(adView != null)
 			adView.resume();
 	}
 
 	void onDestroy()
 	{
+		destruida = true;
 		if(adView != null)
 			adView.destroy();
 	}
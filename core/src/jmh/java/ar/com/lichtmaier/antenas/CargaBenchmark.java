@@ -0,0 +1,39 @@
+package ar.com.lichtmaier.antenas;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Tiempo de carga del archivo de antenas de cada país. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 20)
+@Fork(1)
+public class CargaBenchmark
+{
+	@Param({"AR", "AU", "BR", "CA", "NZ", "UK", "US", "UY"})
+	public País país;
+
+	private FuenteDeDatos fuente;
+
+	@Setup(Level.Trial)
+	public void preparar()
+	{
+		fuente = Datos.fuente();
+	}
+
+	@Setup(Level.Invocation)
+	public void descargar()
+	{
+		Antena.descargar(país);
+	}
+
+	@Benchmark
+	public List<Antena> cargar()
+	{
+		return Antena.dameAntenas(fuente, país);
+	}
+}
@@ -0,0 +1,51 @@
+package ar.com.lichtmaier.antenas;
+
+import org.gavaghan.geodesy.GlobalCoordinates;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** {@link Antena#dameAntenasCerca} en zonas densas, para cada radio que se puede elegir en las preferencias. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class CercanasBenchmark
+{
+	@Param({"sao_paulo", "nueva_york"})
+	public String lugar;
+
+	/** Los valores de <code>pref_max_dist_values</code>, en km. */
+	@Param({"5", "10", "20", "40", "60", "100", "300"})
+	public int radio;
+
+	@Param({"true", "false"})
+	public boolean mostrarMenos;
+
+	private FuenteDeDatos fuente;
+
+	/* Cada llamada usa coordenadas distintas para que no se aprovechen los rumbos ya calculados. */
+	private final GlobalCoordinates[] coords = new GlobalCoordinates[64];
+	private int i = 0;
+
+	@Setup(Level.Trial)
+	public void preparar()
+	{
+		fuente = Datos.fuente();
+		double[] ll = Datos.lugar(lugar);
+		for(int j = 0 ; j < coords.length ; j++)
+			coords[j] = new GlobalCoordinates(ll[0] + (j % 8) * .001, ll[1] + (j / 8) * .001);
+		// La primera llamada carga los países.
+		Antena.dameAntenasCerca(fuente, coords[0], radio * 1000, mostrarMenos);
+	}
+
+	@Benchmark
+	public List<Antena> dameAntenasCerca()
+	{
+		i = (i + 1) % coords.length;
+		return Antena.dameAntenasCerca(fuente, coords[i], radio * 1000, mostrarMenos);
+	}
+}
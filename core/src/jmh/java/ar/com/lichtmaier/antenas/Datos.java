@@ -0,0 +1,37 @@
+package ar.com.lichtmaier.antenas;
+
+import java.io.File;
+
+/** Lo que comparten los benchmarks y las pruebas: de dónde sacar los datos y algunos lugares de prueba. */
+final class Datos
+{
+	private Datos() { }
+
+	/** Los archivos de la aplicación, o el directorio indicado en la propiedad <code>antenas.datos</code>. */
+	static FuenteDeDatos fuente()
+	{
+		return new FuenteArchivos(new File(System.getProperty("antenas.datos", "../app/src/main/res/raw")));
+	}
+
+	/** Latitud y longitud de lugares con muchas antenas cerca. */
+	static double[] lugar(String nombre)
+	{
+		switch(nombre)
+		{
+			case "sao_paulo":
+				return new double[] { -23.5505, -46.6333 };
+			case "nueva_york":
+				return new double[] { 40.7128, -74.0060 };
+			case "buenos_aires":
+				return new double[] { -34.6037, -58.3816 };
+			case "londres":
+				return new double[] { 51.5074, -0.1278 };
+			case "sidney":
+				return new double[] { -33.8688, 151.2093 };
+			case "montevideo":
+				return new double[] { -34.9011, -56.1645 };
+			default:
+				throw new IllegalArgumentException(nombre);
+		}
+	}
+}
@@ -0,0 +1,142 @@
+package ar.com.lichtmaier.antenas;
+
+import org.gavaghan.geodesy.GlobalCoordinates;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Cómo escalan la carga, las búsquedas y la memoria con archivos generados por {@link GeneradorDatos}.
+ *
+ * Los archivos se generan una vez en el directorio temporal y se reusan en las corridas siguientes con los
+ * mismos parámetros. La memoria que ocupan las antenas se informa con {@link MemoriaAntenas}.
+ * Con <code>-p país=BR</code> se generan los archivos de otro país.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+public class EscalaBenchmark
+{
+	/** Los archivos generados para un país, una cantidad y una semilla. Los demás países no tienen antenas,
+	 * así que las búsquedas cerca de una frontera no leen los archivos reales.
+	 */
+	private static FuenteDeDatos fuente(final País generado, int tamaño, long semilla) throws IOException
+	{
+		File dir = new File(System.getProperty("java.io.tmpdir"), "antenas-sinteticas-" + generado.name().toLowerCase()
+				+ "-" + tamaño + "-" + semilla + "-v" + GeneradorDatos.VERSIÓN);
+		final FuenteArchivos archivos = new FuenteArchivos(dir);
+		if(!new File(dir, "antenas_" + generado.name().toLowerCase() + ".xml").exists())
+			GeneradorDatos.generar(dir, generado, tamaño, semilla);
+		return new FuenteDeDatos()
+		{
+			@Override
+			public InputStream abrir(País país) throws IOException
+			{
+				if(país == generado)
+					return archivos.abrir(país);
+				return new ByteArrayInputStream("<antenas>\n</antenas>\n".getBytes(StandardCharsets.UTF_8));
+			}
+		};
+	}
+
+	@State(Scope.Thread)
+	public static class SinCargar
+	{
+		@Param({"10000", "100000", "1000000"})
+		public int tamaño;
+
+		@Param({"US"})
+		public País país;
+
+		@Param({"1"})
+		public long semilla;
+
+		FuenteDeDatos fuente;
+
+		@Setup(Level.Trial)
+		public void preparar() throws IOException
+		{
+			fuente = fuente(país, tamaño, semilla);
+		}
+
+		@Setup(Level.Invocation)
+		public void descargar()
+		{
+			Antena.descargar(país);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Cargado
+	{
+		@Param({"10000", "100000", "1000000"})
+		public int tamaño;
+
+		@Param({"US"})
+		public País país;
+
+		@Param({"1"})
+		public long semilla;
+
+		/* Alrededor de la ciudad más grande del país. */
+		final GlobalCoordinates[] coords = new GlobalCoordinates[64];
+		double[] centro;
+		FuenteDeDatos fuente;
+		int i = 0;
+		final List<Antena> antenas = new ArrayList<>();
+
+		@Setup(Level.Trial)
+		public void preparar() throws IOException
+		{
+			fuente = fuente(país, tamaño, semilla);
+			Runtime rt = Runtime.getRuntime();
+			long antes = usada(rt);
+			List<Antena> l = Antena.dameAntenas(fuente, país);
+			long después = usada(rt);
+			MemoriaAntenas.registrar(l.size(), después - antes);
+			centro = GeneradorDatos.centro(país);
+			for(int j = 0 ; j < coords.length ; j++)
+				coords[j] = new GlobalCoordinates(centro[0] + (j % 8) * .001, centro[1] + (j / 8) * .001);
+		}
+
+		private static long usada(Runtime rt)
+		{
+			for(int k = 0 ; k < 3 ; k++)
+				System.gc();
+			return rt.totalMemory() - rt.freeMemory();
+		}
+	}
+
+	@Benchmark
+	@BenchmarkMode(Mode.SingleShotTime)
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@Measurement(iterations = 5)
+	public List<Antena> carga(SinCargar s)
+	{
+		return Antena.dameAntenas(s.fuente, s.país);
+	}
+
+	@Benchmark
+	public List<Antena> cercanas60km(Cargado s)
+	{
+		s.i = (s.i + 1) % s.coords.length;
+		return Antena.dameAntenasCerca(s.fuente, s.coords[s.i], 60000, true);
+	}
+
+	/** Lo que se ve del mapa en zoom 8 sobre la ciudad más grande. */
+	@Benchmark
+	public int rectángulo(Cargado s)
+	{
+		s.antenas.clear();
+		Antena.antenasEnRectángulo(s.centro[0] + 2.1, s.centro[1] - 3.65, s.centro[0] - 2.1, s.centro[1] + 3.65, s.antenas);
+		return s.antenas.size();
+	}
+}
@@ -0,0 +1,312 @@
+package ar.com.lichtmaier.antenas;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeSet;
+
+/** Genera archivos de antenas sintéticos, con el formato de los de cada país (<code>antenas_us.xml</code>,
+ * <code>antenas_br.xml</code>, etc.), para ver cómo escalan la carga y las búsquedas con muchas más antenas
+ * que las actuales (radios FM, baja potencia).
+ *
+ * Las antenas se agrupan alrededor de ciudades según su población, con algunas dispersas en el resto
+ * del país, como en los datos reales. Cada país describe sus antenas como en sus datos: canales con
+ * cadena en Estados Unidos, canales con el nombre de la red en Australia, Nueva Zelanda y Uruguay, el
+ * nombre del lugar en Argentina y el Reino Unido y los canales en la descripción en Brasil y Canadá.
+ *
+ * <pre>java ar.com.lichtmaier.antenas.GeneradorDatos directorio país cantidad [semilla]</pre>
+ */
+public class GeneradorDatos
+{
+	/** Cambia cada vez que cambia lo que se genera, para no reusar archivos de una versión anterior. */
+	static final int VERSIÓN = 2;
+
+	/** Dónde están las antenas de un país y cómo se llaman sus redes. */
+	private static final class Perfil
+	{
+		/** Latitud, longitud y peso (población aproximada, en millones) de las ciudades más grandes. */
+		final double[][] ciudades;
+		/** El rectángulo donde caen las antenas dispersas: latitud y longitud mínimas y máximas. */
+		final double latMín, latMáx, lonMín, lonMáx;
+		/** Las redes de los canales, para los países que las tienen en los datos. */
+		final String[] redes;
+
+		Perfil(double[][] ciudades, double latMín, double latMáx, double lonMín, double lonMáx, String... redes)
+		{
+			this.ciudades = ciudades;
+			this.latMín = latMín;
+			this.latMáx = latMáx;
+			this.lonMín = lonMín;
+			this.lonMáx = lonMáx;
+			this.redes = redes;
+		}
+	}
+
+	private static final Map<País, Perfil> PERFILES = new EnumMap<>(País.class);
+	static
+	{
+		PERFILES.put(País.US, new Perfil(new double[][] {
+			{ 40.71, -74.01, 20.1 }, { 34.05, -118.24, 13.2 }, { 41.88, -87.63, 9.5 }, { 32.78, -96.80, 7.6 },
+			{ 29.76, -95.37, 7.1 }, { 38.91, -77.04, 6.3 }, { 39.95, -75.17, 6.2 }, { 25.76, -80.19, 6.1 },
+			{ 33.75, -84.39, 6.0 }, { 42.36, -71.06, 4.9 }, { 33.45, -112.07, 4.8 }, { 37.77, -122.42, 4.7 },
+			{ 33.95, -117.40, 4.6 }, { 42.33, -83.05, 4.4 }, { 47.61, -122.33, 4.0 }, { 44.98, -93.27, 3.7 },
+			{ 32.72, -117.16, 3.3 }, { 27.95, -82.46, 3.2 }, { 39.74, -104.99, 2.9 }, { 38.63, -90.20, 2.8 },
+			{ 39.29, -76.61, 2.8 }, { 35.23, -80.84, 2.7 }, { 28.54, -81.38, 2.7 }, { 29.42, -98.49, 2.6 },
+			{ 45.52, -122.68, 2.5 }, { 38.58, -121.49, 2.4 }, { 40.44, -79.99, 2.4 }, { 36.17, -115.14, 2.3 },
+			{ 30.27, -97.74, 2.3 }, { 39.10, -84.51, 2.2 }, { 39.10, -94.58, 2.2 }, { 39.96, -83.00, 2.1 },
+			{ 41.50, -81.69, 2.1 }, { 39.77, -86.16, 2.1 }, { 36.16, -86.78, 2.0 }, { 40.76, -111.89, 1.3 },
+			{ 35.47, -97.52, 1.4 }, { 35.15, -90.05, 1.3 }, { 29.95, -90.07, 1.3 }, { 21.31, -157.86, 1.0 },
+			{ 61.22, -149.90, 0.4 },
+		}, 25, 49, -124, -67));
+		PERFILES.put(País.CA, new Perfil(new double[][] {
+			{ 43.65, -79.38, 6.2 }, { 45.50, -73.57, 4.3 }, { 49.28, -123.12, 2.6 }, { 51.05, -114.07, 1.5 },
+			{ 53.55, -113.49, 1.4 }, { 45.42, -75.70, 1.4 }, { 49.90, -97.14, 0.8 }, { 46.81, -71.21, 0.8 },
+			{ 44.65, -63.57, 0.4 },
+		}, 42, 60, -135, -53));
+		PERFILES.put(País.AR, new Perfil(new double[][] {
+			{ -34.60, -58.38, 15.0 }, { -31.42, -64.18, 1.5 }, { -32.95, -60.65, 1.3 }, { -32.89, -68.83, 1.1 },
+			{ -26.81, -65.22, 0.9 }, { -34.92, -57.95, 0.8 }, { -38.00, -57.56, 0.6 }, { -24.78, -65.41, 0.6 },
+		}, -55, -22, -73, -54));
+		PERFILES.put(País.BR, new Perfil(new double[][] {
+			{ -23.55, -46.63, 21.0 }, { -22.91, -43.17, 12.0 }, { -19.92, -43.94, 6.0 }, { -15.79, -47.88, 4.5 },
+			{ -30.03, -51.23, 4.3 }, { -8.05, -34.88, 4.0 }, { -3.73, -38.52, 4.0 }, { -12.97, -38.50, 3.9 },
+			{ -25.43, -49.27, 3.6 }, { -3.12, -60.02, 2.6 }, { -1.46, -48.49, 2.5 },
+		}, -33, 5, -73, -35));
+		PERFILES.put(País.UK, new Perfil(new double[][] {
+			{ 51.51, -0.13, 9.0 }, { 52.49, -1.89, 2.9 }, { 53.48, -2.24, 2.8 }, { 53.80, -1.55, 1.9 },
+			{ 55.86, -4.25, 1.8 }, { 54.98, -1.61, 1.1 }, { 53.41, -2.98, 0.9 }, { 51.45, -2.59, 0.7 },
+			{ 54.60, -5.93, 0.6 }, { 51.48, -3.18, 0.5 }, { 55.95, -3.19, 0.5 },
+		}, 50, 58.6, -7.5, 1.7));
+		PERFILES.put(País.AU, new Perfil(new double[][] {
+			{ -33.87, 151.21, 5.3 }, { -37.81, 144.96, 5.1 }, { -27.47, 153.03, 2.6 }, { -31.95, 115.86, 2.1 },
+			{ -34.93, 138.60, 1.4 }, { -28.02, 153.40, 0.7 }, { -35.28, 149.13, 0.5 }, { -42.88, 147.33, 0.25 },
+			{ -12.46, 130.84, 0.15 },
+		}, -43, -11, 113, 153.6, "ABC", "SBS", "SEVEN", "NINE", "TEN", "WIN", "PRIME7", "SOUTHERN CROSS"));
+		PERFILES.put(País.NZ, new Perfil(new double[][] {
+			{ -36.85, 174.76, 1.7 }, { -41.29, 174.78, 0.4 }, { -43.53, 172.64, 0.4 }, { -37.79, 175.28, 0.2 },
+			{ -37.69, 176.17, 0.15 }, { -45.87, 170.50, 0.13 },
+		}, -46.6, -34.4, 166.4, 178.6, "TVNZ", "Kordia", "Sky TV", "World TV", "TVWorks", "Maori TV"));
+		PERFILES.put(País.UY, new Perfil(new double[][] {
+			{ -34.90, -56.16, 1.9 }, { -31.38, -57.96, 0.1 }, { -34.90, -54.95, 0.1 }, { -32.32, -58.08, 0.08 },
+			{ -30.90, -55.55, 0.07 }, { -32.37, -54.18, 0.05 },
+		}, -35, -30.1, -58.4, -53.2, "TNU", "TV Ciudad", "Saeta", "Teledoce", "Montecarlo TV", "La Tele", "Canal 7"));
+	}
+
+	/** Proporción de antenas fuera de las ciudades. */
+	private static final double DISPERSAS = .15;
+
+	/** Cadenas, incluyendo las distintas formas en que aparecen escritas en los datos. */
+	private static final String[] CADENAS = {
+		"ABC", "CBS", "CW", "THE CW NETWORK", "FOX", "ION", "MYTV", "MY NETWORK TV", "NBC", "PBS",
+		"PUBLIC BROADCASTING SERVICE", "TELEMUNDO", "TBN", "TRINITY BROADCASTING NETWORK", "UNIMAS",
+		"UNIVISION", "IND", "IND", "IND", "NONE",
+	};
+
+	/** Sílabas para los nombres de los lugares. */
+	private static final String[] SÍLABAS = {
+		"ba", "ca", "co", "da", "del", "for", "gar", "hill", "la", "lan", "ma", "mon", "na", "ner", "pa", "ra",
+		"ro", "san", "ta", "ton", "vi", "wen", "ya", "zu",
+	};
+
+	private GeneradorDatos() { }
+
+	public static void main(String[] args) throws IOException
+	{
+		if(args.length < 3)
+		{
+			System.err.println("uso: GeneradorDatos directorio país cantidad [semilla]");
+			System.exit(2);
+		}
+		long semilla = args.length > 3 ? Long.parseLong(args[3]) : 1;
+		generar(new File(args[0]), País.valueOf(args[1].toUpperCase()), Integer.parseInt(args[2]), semilla);
+	}
+
+	/** Devuelve la latitud y la longitud de la ciudad más grande de un país, donde hay más antenas. */
+	static double[] centro(País país)
+	{
+		double[] ciudad = PERFILES.get(país).ciudades[0];
+		return new double[] { ciudad[0], ciudad[1] };
+	}
+
+	/** Escribe el archivo de antenas de un país en el directorio.
+	 *
+	 * @param dir el directorio, que se crea si no existe
+	 * @param país el país, que determina dónde quedan las antenas y cómo se describen
+	 * @param cantidad cuántas antenas generar
+	 * @param semilla la semilla del generador, para que dos corridas den el mismo archivo
+	 * @return el archivo generado
+	 */
+	public static File generar(File dir, País país, int cantidad, long semilla) throws IOException
+	{
+		if(!dir.isDirectory() && !dir.mkdirs())
+			throw new IOException("no se pudo crear " + dir);
+		Perfil perfil = PERFILES.get(país);
+		Random r = new Random(semilla);
+		double pesoTotal = 0;
+		for(double[] ciudad : perfil.ciudades)
+			pesoTotal += ciudad[2];
+
+		File archivo = new File(dir, "antenas_" + país.name().toLowerCase() + ".xml");
+		try(Writer w = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(archivo), StandardCharsets.UTF_8), 1 << 16))
+		{
+			w.write("<antenas>\n");
+			int ref = 1;
+			for(int i = 0 ; i < cantidad ; i++)
+			{
+				double lat, lon;
+				if(r.nextDouble() < DISPERSAS)
+				{
+					// En algún lugar del territorio.
+					lat = perfil.latMín + r.nextDouble() * (perfil.latMáx - perfil.latMín);
+					lon = perfil.lonMín + r.nextDouble() * (perfil.lonMáx - perfil.lonMín);
+				} else
+				{
+					double[] ciudad = elegirCiudad(perfil.ciudades, r, pesoTotal);
+					// Las ciudades más grandes se extienden más; en grados, unos 20 a 60 km.
+					double radio = .2 * Math.sqrt(ciudad[2] / 2);
+					lat = ciudad[0] + r.nextGaussian() * radio;
+					lon = ciudad[1] + r.nextGaussian() * radio / Math.cos(Math.toRadians(ciudad[0]));
+				}
+				// Casi siempre pocos canales, a veces una torre con muchos.
+				int canales = 1;
+				while(canales < 12 && r.nextDouble() < .55)
+					canales++;
+				switch(país)
+				{
+					case US:
+						w.write(String.format(Locale.US, "<antena lat=\"%.5f\" lon=\"%.5f\">\n", lat, lon));
+						for(int j = 0 ; j < canales ; j++)
+							escribirCanal(w, r, ref++);
+						w.write("</antena>\n");
+						break;
+					case AU:
+					case NZ:
+					case UY:
+						w.write(String.format(Locale.US, "<antena lat=\"%.5f\" lon=\"%.5f\">\n", lat, lon));
+						for(int j = 0 ; j < canales ; j++)
+							w.write(String.format(Locale.US, "<canal nombre=\"%s\" numero=\"%d\"/>\n",
+									perfil.redes[r.nextInt(perfil.redes.length)], 21 + r.nextInt(49)));
+						w.write("</antena>\n");
+						break;
+					case UK:
+						w.write(String.format(Locale.US, "<antena ref=\"%c%c%06d\" lat=\"%.5f\" lon=\"%.5f\" desc=\"%s\"/>\n",
+								(char)('N' + r.nextInt(8)), (char)('A' + r.nextInt(26)), r.nextInt(1000000), lat, lon, lugar(r)));
+						break;
+					case AR:
+						w.write(String.format(Locale.US, "<antena lat=\"%.5f\" lon=\"%.5f\" desc=\"%s\"/>\n", lat, lon, lugar(r)));
+						break;
+					case BR:
+						w.write(String.format(Locale.US, "<antena lat=\"%.5f\" lon=\"%.5f\" desc=\"%s\"/>\n", lat, lon, canais(r, canales)));
+						break;
+					case CA:
+						w.write(String.format(Locale.US, "<antena lat=\"%.5f\" lon=\"%.5f\" desc=\"%s\"/>\n", lat, lon, indicativos(r, canales)));
+						break;
+				}
+			}
+			w.write("</antenas>\n");
+		}
+		return archivo;
+	}
+
+	private static double[] elegirCiudad(double[][] ciudades, Random r, double pesoTotal)
+	{
+		double x = r.nextDouble() * pesoTotal;
+		for(double[] ciudad : ciudades)
+		{
+			x -= ciudad[2];
+			if(x < 0)
+				return ciudad;
+		}
+		return ciudades[ciudades.length - 1];
+	}
+
+	/** Un nombre de lugar inventado, de dos o tres sílabas. */
+	private static String lugar(Random r)
+	{
+		StringBuilder sb = new StringBuilder();
+		int sílabas = 2 + r.nextInt(2);
+		for(int i = 0 ; i < sílabas ; i++)
+			sb.append(SÍLABAS[r.nextInt(SÍLABAS.length)]);
+		sb.setCharAt(0, Character.toUpperCase(sb.charAt(0)));
+		return sb.toString();
+	}
+
+	/** Los canales como en los datos de Brasil: "Canal 22" o "Canais: 24 26 28". */
+	private static String canais(Random r, int canales)
+	{
+		TreeSet<Integer> números = new TreeSet<>();
+		while(números.size() < canales)
+			números.add(14 + r.nextInt(56));
+		if(números.size() == 1)
+			return "Canal " + números.first();
+		StringBuilder sb = new StringBuilder("Canais:");
+		for(int n : números)
+			sb.append(' ').append(n);
+		return sb.toString();
+	}
+
+	/** Los canales como en los datos de Canadá: "CJBN-TV (ch. 13), CIHF-DT-1 (ch. 44)". */
+	private static String indicativos(Random r, int canales)
+	{
+		StringBuilder sb = new StringBuilder();
+		for(int j = 0 ; j < canales ; j++)
+		{
+			if(j > 0)
+				sb.append(", ");
+			sb.append('C');
+			for(int k = 0 ; k < 3 ; k++)
+				sb.append((char)('A' + r.nextInt(26)));
+			sb.append(r.nextBoolean() ? "-DT" : "-TV").append(" (ch. ").append(2 + r.nextInt(50)).append(')');
+		}
+		return sb.toString();
+	}
+
+	private static void escribirCanal(Writer w, Random r, int ref) throws IOException
+	{
+		StringBuilder nombre = new StringBuilder(8);
+		nombre.append(r.nextBoolean() ? 'K' : 'W');
+		for(int k = 0 ; k < 3 ; k++)
+			nombre.append((char)('A' + r.nextInt(26)));
+		String número;
+		String númeroVirtual = null;
+		double tipo = r.nextDouble();
+		if(tipo < .4)
+		{
+			// Radio FM.
+			nombre.append("-FM");
+			número = String.format(Locale.US, "%.1f", 88.1 + r.nextInt(100) * .2);
+		} else
+		{
+			if(tipo < .7)
+				nombre.append("-LP");
+			número = String.valueOf(2 + r.nextInt(50));
+			if(r.nextBoolean())
+				númeroVirtual = String.valueOf(2 + r.nextInt(68));
+		}
+		w.write("<canal nombre=\"");
+		w.write(nombre.toString());
+		w.write("\" numero=\"");
+		w.write(número);
+		if(númeroVirtual != null)
+		{
+			w.write("\" numero_virtual=\"");
+			w.write(númeroVirtual);
+		}
+		if(r.nextDouble() < .7)
+		{
+			w.write("\" cadena=\"");
+			w.write(CADENAS[r.nextInt(CADENAS.length)]);
+		}
+		w.write("\" ref=\"");
+		w.write(String.valueOf(ref));
+		w.write("\"/>\n");
+	}
+}
@@ -0,0 +1,59 @@
+package ar.com.lichtmaier.antenas;
+
+import org.gavaghan.geodesy.Ellipsoid;
+import org.gavaghan.geodesy.GeodeticCalculator;
+import org.gavaghan.geodesy.GeodeticCurve;
+import org.gavaghan.geodesy.GlobalCoordinates;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Cálculos geodésicos: uno suelto y uno por cada antena de una lista, como cuando cambia la ubicación. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class GeodesiaBenchmark
+{
+	/** Cantidad de antenas del cálculo en lote. */
+	private static final int LOTE = 200;
+
+	private final GlobalCoordinates desde = new GlobalCoordinates(40.7128, -74.0060);
+	private final GlobalCoordinates hasta = new GlobalCoordinates(40.7484, -73.9857);
+	private final List<Antena> antenas = new ArrayList<>();
+	private final GlobalCoordinates[] coords = new GlobalCoordinates[64];
+	private int i = 0;
+
+	@Setup(Level.Trial)
+	public void preparar()
+	{
+		List<Antena> todas = Antena.dameAntenas(Datos.fuente(), País.US);
+		antenas.addAll(todas.subList(0, Math.min(LOTE, todas.size())));
+		for(int j = 0 ; j < coords.length ; j++)
+			coords[j] = new GlobalCoordinates(desde.getLatitude() + j * .001, desde.getLongitude());
+	}
+
+	@Benchmark
+	public GeodeticCurve curva()
+	{
+		return GeodeticCalculator.calculateGeodeticCurve(Ellipsoid.WGS84, desde, hasta);
+	}
+
+	@Benchmark
+	@OperationsPerInvocation(LOTE)
+	public void lote(Blackhole bh)
+	{
+		i = (i + 1) % coords.length;
+		GlobalCoordinates c = coords[i];
+		for(Antena antena : antenas)
+		{
+			bh.consume(antena.distanceTo(c));
+			bh.consume(antena.rumboDesde(c));
+		}
+	}
+}
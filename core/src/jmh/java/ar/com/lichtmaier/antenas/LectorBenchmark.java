@@ -0,0 +1,56 @@
+package ar.com.lichtmaier.antenas;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.*;
+
+/** Lectura de un archivo de antenas ya en memoria: el lector de bytes contra el parser SAX de antes. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LectorBenchmark
+{
+	@Param({"AU", "US"})
+	public País país;
+
+	private byte[] archivo;
+
+	@Setup(Level.Trial)
+	public void preparar() throws IOException
+	{
+		try(InputStream in = Datos.fuente().abrir(país))
+		{
+			byte[] buf = new byte[1 << 16];
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+			int n;
+			while((n = in.read(buf)) != -1)
+				bytes.write(buf, 0, n);
+			archivo = bytes.toByteArray();
+		}
+	}
+
+	@Benchmark
+	public List<Antena> lector() throws IOException
+	{
+		List<Antena> lista = new ArrayList<>();
+		LectorAntenas.leer(new ByteArrayInputStream(archivo), país, lista);
+		return lista;
+	}
+
+	@Benchmark
+	public List<Antena> sax() throws IOException
+	{
+		List<Antena> lista = new ArrayList<>();
+		LectorSAX.leer(new ByteArrayInputStream(archivo), país, lista);
+		return lista;
+	}
+}
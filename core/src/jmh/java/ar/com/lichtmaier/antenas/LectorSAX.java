@@ -0,0 +1,61 @@
+package ar.com.lichtmaier.antenas;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.parsers.SAXParserFactory;
+
+import org.xml.sax.Attributes;
+import org.xml.sax.SAXException;
+import org.xml.sax.helpers.DefaultHandler;
+
+/** El lector de antenas con SAX que se usaba antes de {@link LectorAntenas}. Queda como referencia para
+ * compararlos.
+ */
+class LectorSAX
+{
+	static void leer(InputStream in, final País país, final List<Antena> lista) throws IOException
+	{
+		try
+		{
+			SAXParserFactory.newInstance().newSAXParser().parse(in, new DefaultHandler()
+			{
+				private Antena antena = null;
+				private int index = 0;
+
+				@Override
+				public void startElement(String uri, String localName, String name, Attributes atts) throws SAXException
+				{
+					switch(name)
+					{
+						case "antena":
+							antena = new Antena(atts.getValue("desc"), Double.parseDouble(atts.getValue("lat")), Double.parseDouble(atts.getValue("lon")), index++, país, atts.getValue("ref"));
+							lista.add(antena);
+							break;
+						case "canal":
+							if(antena == null)
+								throw new SAXException("canal sin antena?");
+							antena.agregar(new Canal(atts.getValue("nombre"),
+									atts.getValue("numero"),
+									atts.getValue("numero_virtual"),
+									atts.getValue("cadena"),
+									atts.getValue("ref")));
+							break;
+					}
+				}
+
+				@Override
+				public void endElement(String uri, String localName, String name)
+				{
+					if(name.equals("antena"))
+						antena = null;
+				}
+			});
+		} catch(SAXException | ParserConfigurationException e)
+		{
+			throw new IOException(e);
+		}
+	}
+}
@@ -0,0 +1,52 @@
+package ar.com.lichtmaier.antenas;
+
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.profile.InternalProfiler;
+import org.openjdk.jmh.profile.ProfilerResult;
+import org.openjdk.jmh.results.AggregationPolicy;
+import org.openjdk.jmh.results.IterationResult;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+/** Agrega a los resultados de JMH, como métricas secundarias, la memoria que ocupan las antenas que cargó
+ * el benchmark, así queda en el JSON junto a los tiempos de cada tamaño.
+ *
+ * Los benchmarks la anotan con {@link #registrar} al preparar su estado. Se activa con
+ * <code>-prof ar.com.lichtmaier.antenas.MemoriaAntenas</code>, como hace la tarea <code>jmh</code>.
+ */
+public class MemoriaAntenas implements InternalProfiler
+{
+	private static volatile long bytes = -1;
+	private static volatile int antenas;
+
+	/** Anota lo que ocupan las antenas cargadas, para informarlo al terminar cada iteración. */
+	static void registrar(int cantidad, long memoria)
+	{
+		antenas = cantidad;
+		bytes = memoria;
+	}
+
+	@Override
+	public String getDescription()
+	{
+		return "Memoria que ocupan las antenas cargadas";
+	}
+
+	@Override
+	public void beforeIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams)
+	{
+	}
+
+	@Override
+	public Collection<ProfilerResult> afterIteration(BenchmarkParams benchmarkParams, IterationParams iterationParams, IterationResult result)
+	{
+		long b = bytes;
+		if(b < 0)
+			return Collections.<ProfilerResult>emptyList();
+		return Arrays.asList(new ProfilerResult("memoria", b / 1048576.0, "MB", AggregationPolicy.AVG),
+				new ProfilerResult("bytes por antena", antenas == 0 ? 0 : (double)b / antenas, "bytes", AggregationPolicy.AVG));
+	}
+}
@@ -0,0 +1,54 @@
+package ar.com.lichtmaier.antenas;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** {@link Antena#antenasEnRectángulo} con lo que se ve del mapa en distintos niveles de zoom. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class RectánguloBenchmark
+{
+	/** Tamaño de pantalla supuesto, en píxeles, igual que los del mapa (256 por tile en zoom 0). */
+	private static final int ANCHO = 1080, ALTO = 1920;
+
+	@Param({"nueva_york", "sao_paulo"})
+	public String lugar;
+
+	@Param({"4", "6", "8", "10", "12"})
+	public int zoom;
+
+	private double norte, oeste, sur, este;
+	private final List<Antena> antenas = new ArrayList<>();
+
+	@Setup(Level.Trial)
+	public void preparar()
+	{
+		FuenteDeDatos fuente = Datos.fuente();
+		for(País país : País.values())
+			Antena.dameAntenas(fuente, país);
+		double[] ll = Datos.lugar(lugar);
+		double gradosPorPíxel = 360.0 / (256 << zoom);
+		double medioAncho = ANCHO * gradosPorPíxel / 2;
+		// Aproximado: en Mercator la latitud se achica con el coseno.
+		double medioAlto = ALTO * gradosPorPíxel * Math.cos(Math.toRadians(ll[0])) / 2;
+		norte = Math.min(ll[0] + medioAlto, 85);
+		sur = Math.max(ll[0] - medioAlto, -85);
+		oeste = Math.max(ll[1] - medioAncho, -180);
+		este = Math.min(ll[1] + medioAncho, 180);
+	}
+
+	@Benchmark
+	public int antenasEnRectángulo()
+	{
+		antenas.clear();
+		Antena.antenasEnRectángulo(norte, oeste, sur, este, antenas);
+		return antenas.size();
+	}
+}
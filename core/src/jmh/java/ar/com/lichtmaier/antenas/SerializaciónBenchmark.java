@@ -0,0 +1,138 @@
+package ar.com.lichtmaier.antenas;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.gavaghan.geodesy.GlobalCoordinates;
+import org.openjdk.jmh.annotations.*;
+
+/** Serializar y volver a leer las antenas cercanas a un lugar: la forma compacta de {@link Antena.Forma}
+ * contra la serialización por omisión del grafo de objetos que se usaba antes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SerializaciónBenchmark
+{
+	/** Los campos que se serializaban de una antena antes de {@link Antena.Forma}. */
+	static class AntenaPorOmisión implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		final String descripción, ref, geohash;
+		final GlobalCoordinates c;
+		final int index;
+		final País país;
+		final List<CanalPorOmisión> canales;
+		double dist;
+		GlobalCoordinates coordsCache;
+		double rumboCacheado, distCacheada;
+
+		AntenaPorOmisión(Antena antena)
+		{
+			descripción = antena.descripción;
+			ref = antena.ref;
+			geohash = antena.geohash;
+			c = antena.dameCoordenadas();
+			index = antena.index;
+			país = antena.país;
+			dist = antena.dist;
+			if(antena.canales == null)
+			{
+				canales = null;
+			} else
+			{
+				canales = new ArrayList<>();
+				for(Canal canal : antena.canales)
+					canales.add(new CanalPorOmisión(canal));
+			}
+		}
+	}
+
+	static class CanalPorOmisión implements Serializable
+	{
+		private static final long serialVersionUID = 1L;
+
+		final String nombre, numero, numeroVirtual, cadena, ref;
+
+		CanalPorOmisión(Canal canal)
+		{
+			nombre = canal.nombre;
+			numero = canal.numero;
+			numeroVirtual = canal.numeroVirtual;
+			cadena = canal.cadena;
+			ref = canal.ref;
+		}
+	}
+
+	@Param({"nueva_york", "sao_paulo"})
+	public String lugar;
+
+	private ArrayList<Antena> antenas;
+	private ArrayList<AntenaPorOmisión> porOmisión;
+	private byte[] compactas, sinCompactar;
+
+	@Setup(Level.Trial)
+	public void preparar() throws IOException, ClassNotFoundException
+	{
+		double[] ll = Datos.lugar(lugar);
+		antenas = new ArrayList<>(Antena.dameAntenasCerca(Datos.fuente(), new GlobalCoordinates(ll[0], ll[1]), 100000, false));
+		porOmisión = new ArrayList<>();
+		for(Antena antena : antenas)
+			porOmisión.add(new AntenaPorOmisión(antena));
+		compactas = escribir(antenas);
+		sinCompactar = escribir(porOmisión);
+		@SuppressWarnings("unchecked")
+		List<Antena> leídas = (List<Antena>)leer(compactas);
+		if(Instantáneas.huella(leídas) != Instantáneas.huella(antenas))
+			throw new IllegalStateException("las antenas leídas no son las mismas");
+		System.out.printf("%n%d antenas: %d bytes compactas, %d bytes por omisión%n", antenas.size(), compactas.length, sinCompactar.length);
+	}
+
+	@Benchmark
+	public byte[] escribirCompactas() throws IOException
+	{
+		return escribir(antenas);
+	}
+
+	@Benchmark
+	public byte[] escribirPorOmisión() throws IOException
+	{
+		return escribir(porOmisión);
+	}
+
+	@Benchmark
+	public Object leerCompactas() throws IOException, ClassNotFoundException
+	{
+		return leer(compactas);
+	}
+
+	@Benchmark
+	public Object leerPorOmisión() throws IOException, ClassNotFoundException
+	{
+		return leer(sinCompactar);
+	}
+
+	private static byte[] escribir(Serializable o) throws IOException
+	{
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try(ObjectOutputStream out = new ObjectOutputStream(bytes))
+		{
+			out.writeObject(o);
+		}
+		return bytes.toByteArray();
+	}
+
+	private static Object leer(byte[] bytes) throws IOException, ClassNotFoundException
+	{
+		try(ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes)))
+		{
+			return in.readObject();
+		}
+	}
+}
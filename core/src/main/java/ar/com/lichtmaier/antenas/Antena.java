@@ -0,0 +1,929 @@
+package ar.com.lichtmaier.antenas;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Logger;
+
+import org.gavaghan.geodesy.Ellipsoid;
+import org.gavaghan.geodesy.GeodeticCalculator;
+import org.gavaghan.geodesy.GeodeticCurve;
+import org.gavaghan.geodesy.GlobalCoordinates;
+
+import com.github.davidmoten.geo.Coverage;
+import com.github.davidmoten.geo.GeoHash;
+
+public class Antena implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+	private static final Logger log = Logger.getLogger("antenas");
+
+	final public String descripción, ref, geohash;
+	private final GlobalCoordinates c;
+	public final int index;
+	final public País país;
+	public List<Canal> canales;
+
+	public double dist;
+
+	/** Las antenas cargadas y su índice por geohash. Nunca se modifica: cargar o descargar un país arma uno
+	 * nuevo y lo publica en {@link #índice}, así que las consultas no necesitan sincronizarse y siempre ven
+	 * un estado coherente.
+	 */
+	private static final class Índice
+	{
+		static final Índice VACÍO = new Índice(new EnumMap<País, List<Antena>>(País.class), new TreeMap<String, List<Antena>>(),
+				new EnumMap<País, ÍndiceCadenas>(País.class));
+
+		final Map<País, List<Antena>> porPaís;
+		final SortedMap<String, List<Antena>> porGeohash;
+		final Map<País, ÍndiceCadenas> cadenas;
+
+		/** Cuántos filtros resueltos se guardan. La interfaz usa uno a la vez; el anterior se guarda para
+		 * cuando se vuelve a él.
+		 */
+		private static final int FILTROS_GUARDADOS = 2;
+
+		/** Los últimos filtros resueltos a bits para este índice, del menos al más usado. Es lo único que cambia. */
+		private final Map<FiltroAntenas, Map<País, BitSet>> filtros = new LinkedHashMap<FiltroAntenas, Map<País, BitSet>>(4, .75f, true)
+		{
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<FiltroAntenas, Map<País, BitSet>> eldest)
+			{
+				return size() > FILTROS_GUARDADOS;
+			}
+		};
+
+		private Índice(Map<País, List<Antena>> porPaís, SortedMap<String, List<Antena>> porGeohash, Map<País, ÍndiceCadenas> cadenas)
+		{
+			this.porPaís = porPaís;
+			this.porGeohash = porGeohash;
+			this.cadenas = cadenas;
+		}
+
+		/** Devuelve, para cada país, las antenas que pasan el filtro, o null si no filtra nada. Los países
+		 * sin entrada no tienen ninguna antena que pase.
+		 */
+		Map<País, BitSet> bits(FiltroAntenas filtro)
+		{
+			if(filtro == null || !filtro.filtraAlgo())
+				return null;
+			Map<País, BitSet> res;
+			synchronized(filtros)
+			{
+				res = filtros.get(filtro);
+			}
+			if(res == null)
+			{
+				// Se resuelve fuera del candado: en el peor caso dos hilos calculan lo mismo.
+				res = new EnumMap<>(País.class);
+				for(Map.Entry<País, ÍndiceCadenas> e : cadenas.entrySet())
+					res.put(e.getKey(), e.getValue().filtrar(filtro));
+				synchronized(filtros)
+				{
+					filtros.put(filtro, res);
+				}
+			}
+			return res;
+		}
+
+		/** Devuelve un índice con las antenas de otro país. Sólo se copian las listas de los geohashes que cambian. */
+		Índice con(País país, List<Antena> antenas)
+		{
+			Map<País, List<Antena>> pp = new EnumMap<>(porPaís);
+			pp.put(país, Collections.unmodifiableList(antenas));
+			SortedMap<String, List<Antena>> pg = new TreeMap<>(porGeohash);
+			Map<String, List<Antena>> nuevas = new HashMap<>();
+			for(Antena antena : antenas)
+			{
+				List<Antena> l = nuevas.get(antena.geohash);
+				if(l == null)
+				{
+					l = new ArrayList<>();
+					List<Antena> anterior = porGeohash.get(antena.geohash);
+					if(anterior != null)
+						l.addAll(anterior);
+					nuevas.put(antena.geohash, l);
+				}
+				l.add(antena);
+			}
+			pg.putAll(nuevas);
+			Map<País, ÍndiceCadenas> c = new EnumMap<>(cadenas);
+			c.put(país, new ÍndiceCadenas(antenas));
+			return new Índice(pp, pg, c);
+		}
+
+		/** Devuelve un índice sin las antenas de un país. */
+		Índice sin(País país)
+		{
+			List<Antena> antenas = porPaís.get(país);
+			if(antenas == null)
+				return this;
+			Map<País, List<Antena>> pp = new EnumMap<>(porPaís);
+			pp.remove(país);
+			SortedMap<String, List<Antena>> pg = new TreeMap<>(porGeohash);
+			Set<String> hashes = new HashSet<>();
+			for(Antena antena : antenas)
+				hashes.add(antena.geohash);
+			for(String hash : hashes)
+			{
+				List<Antena> quedan = new ArrayList<>();
+				for(Antena antena : porGeohash.get(hash))
+					if(antena.país != país)
+						quedan.add(antena);
+				if(quedan.isEmpty())
+					pg.remove(hash);
+				else
+					pg.put(hash, quedan);
+			}
+			Map<País, ÍndiceCadenas> c = new EnumMap<>(cadenas);
+			c.remove(país);
+			return new Índice(pp, pg, c);
+		}
+	}
+
+	/** Si una antena pasa un filtro resuelto con {@link Índice#bits}. */
+	private static boolean pasa(Map<País, BitSet> bits, Antena antena)
+	{
+		if(bits == null)
+			return true;
+		BitSet b = bits.get(antena.país);
+		return b != null && b.get(antena.index);
+	}
+
+	private static volatile Índice índice = Índice.VACÍO;
+
+	private static volatile Instantáneas instantáneas = null;
+
+	Antena(String descripción, double lat, double lon, int index, País país, String ref)
+	{
+		this.descripción = descripción;
+		this.index = index;
+		c = new GlobalCoordinates(lat, lon);
+		this.país = país;
+		this.ref = ref;
+		geohash = GeoHash.encodeHash(lat, lon, 4);
+	}
+
+	/* Cachés de los textos que arma la interfaz, que dependen del idioma. */
+	transient CharSequence nombre = null;
+	transient Locale localeNombre = null;
+	transient CharSequence detalleCanales = null;
+	transient Locale localeDetalleCanales = null;
+
+	public GlobalCoordinates dameCoordenadas()
+	{
+		return c;
+	}
+
+	/** Devuelve los países cuyas antenas pueden estar cerca de una ubicación. */
+	public static Set<País> paísesCerca(double latitud, double longitud)
+	{
+		return longitud > -27
+			? (longitud < 60 ? EnumSet.of(País.UK) : EnumSet.of(País.AU, País.NZ))
+			: ((latitud > 13)
+				? (latitud < 40 ? EnumSet.of(País.US) : EnumSet.of(País.US, País.CA))
+				: (latitud < -34 || (latitud < -18 && longitud < -58)
+					? EnumSet.of(País.AR, País.UY)
+					: EnumSet.of(País.AR, País.BR, País.UY)));
+	}
+
+	/** Busca las antenas cercanas a una ubicación, cargando los países que hagan falta.
+	 *
+	 * Anota la distancia en {@link #dist} de cada antena, así que se tiene que llamar siempre desde el mismo hilo.
+	 */
+	public static List<Antena> dameAntenasCerca(FuenteDeDatos fuente, GlobalCoordinates coordsUsuario, int maxDist, boolean mostrarMenos)
+	{
+		return dameAntenasCerca(fuente, coordsUsuario, maxDist, mostrarMenos, FiltroAntenas.TODAS);
+	}
+
+	/** Como {@link #dameAntenasCerca(FuenteDeDatos, GlobalCoordinates, int, boolean)}, pero sólo con las antenas
+	 * que pasan un filtro.
+	 */
+	public static List<Antena> dameAntenasCerca(FuenteDeDatos fuente, GlobalCoordinates coordsUsuario, int maxDist, boolean mostrarMenos, FiltroAntenas filtro)
+	{
+		long t = Métricas.empezar("dameAntenasCerca");
+		try
+		{
+			return buscarAntenasCerca(fuente, coordsUsuario, maxDist, mostrarMenos, filtro);
+		} finally
+		{
+			Métricas.terminar("dameAntenasCerca", t);
+		}
+	}
+
+	private static List<Antena> buscarAntenasCerca(FuenteDeDatos fuente, GlobalCoordinates coordsUsuario, final int maxDist, boolean mostrarMenos, FiltroAntenas filtro)
+	{
+		Cercanas cercanas = cercanas(fuente, coordsUsuario, filtro);
+		List<Antena> res;
+		if(mostrarMenos)
+		{
+			// Si hay muchas, pasadas las primeras cinco sólo las que están a menos de dos tercios del máximo.
+			final int límiteMenos = (maxDist * 2) / 3;
+			final int[] n = { 0 };
+			res = cercanas.mientras(new Cercanas.Condición()
+			{
+				@Override
+				public boolean cumple(Antena antena)
+				{
+					return antena.dist < maxDist && (n[0]++ < 5 || antena.dist <= límiteMenos);
+				}
+			});
+		} else
+		{
+			res = cercanas.hasta(maxDist);
+		}
+		distanciaSiguiente = cercanas.distanciaSiguiente();
+		return res;
+	}
+
+	/** Empieza a recorrer las antenas de la más cercana a la más lejana, cargando antes los países de la
+	 * ubicación. Sólo se recorren los países cargados.
+	 *
+	 * @param filtro qué antenas recorrer, o null para todas
+	 */
+	public static Cercanas cercanas(FuenteDeDatos fuente, GlobalCoordinates coords, FiltroAntenas filtro)
+	{
+		cargar(fuente, paísesCerca(coords.getLatitude(), coords.getLongitude()));
+		Índice í = índice;
+		return new Cercanas(í.porGeohash, í.bits(filtro), coords);
+	}
+
+	private static double distanciaSiguiente = Double.POSITIVE_INFINITY;
+
+	/** Devuelve la distancia a la antena más cercana que quedó afuera en la última llamada a
+	 * {@link #dameAntenasCerca}, o infinito si no hay ninguna. Se tiene que llamar desde el mismo hilo.
+	 */
+	public static double dameDistanciaSiguiente()
+	{
+		return distanciaSiguiente;
+	}
+
+	public static void antenasEnRectángulo(double topLeftLat, double topLeftLon, double bottomRightLat, double bottomRightLon, List<Antena> antenas)
+	{
+		antenasEnRectángulo(índice, topLeftLat, topLeftLon, bottomRightLat, bottomRightLon, null, antenas);
+	}
+
+	/** Agrega a la lista las antenas cargadas de un rectángulo que pasan un filtro. */
+	public static void antenasEnRectángulo(double topLeftLat, double topLeftLon, double bottomRightLat, double bottomRightLon, FiltroAntenas filtro, List<Antena> antenas)
+	{
+		Índice í = índice;
+		antenasEnRectángulo(í, topLeftLat, topLeftLon, bottomRightLat, bottomRightLon, í.bits(filtro), antenas);
+	}
+
+	private static void antenasEnRectángulo(Índice í, double topLeftLat, double topLeftLon, double bottomRightLat, double bottomRightLon, Map<País, BitSet> bits, List<Antena> antenas)
+	{
+		Coverage coverage = GeoHash.coverBoundingBox(topLeftLat, topLeftLon, bottomRightLat, bottomRightLon);
+		if(coverage == null)
+		{
+			log.warning("mapa coverBoundingBox(" + topLeftLat + ", " + topLeftLon + ", "
+					+ bottomRightLat + ", " + bottomRightLon + ") dio null");
+			return;
+		}
+		for(String hash : coverage.getHashes())
+			for(Map.Entry<String, List<Antena>> e : í.porGeohash.subMap(hash, hashMásUno(hash)).entrySet())
+				if(bits == null)
+					antenas.addAll(e.getValue());
+				else
+					for(Antena antena : e.getValue())
+						if(pasa(bits, antena))
+							antenas.add(antena);
+	}
+
+	private static String hashMásUno(String hash)
+	{
+		int len = hash.length();
+		return hash.substring(0, len - 1) + (char)((hash.charAt(len - 1) + 1));
+	}
+
+	/** Hilos para leer varios países a la vez. Con más no se gana nada: los teléfonos tienen pocos núcleos. */
+	private static final ExecutorService cargadores = Executors.newFixedThreadPool(
+			Math.max(1, Math.min(3, Runtime.getRuntime().availableProcessors() - 1)), new ThreadFactory()
+			{
+				@Override
+				public Thread newThread(Runnable r)
+				{
+					Thread t = new Thread(r, "cargar antenas");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+
+	/** Escribe las instantáneas de los países leídos del XML, de a una y después de publicarlos en el índice,
+	 * para no demorar la primera carga ni ocupar los {@link #cargadores}.
+	 */
+	private static final ExecutorService guardador = Executors.newSingleThreadExecutor(new ThreadFactory()
+	{
+		@Override
+		public Thread newThread(Runnable r)
+		{
+			Thread t = new Thread(r, "guardar instantáneas");
+			t.setDaemon(true);
+			t.setPriority(Thread.MIN_PRIORITY);
+			return t;
+		}
+	});
+
+	/** Los países que se están leyendo. Quien necesite uno espera su tarea en lugar de leerlo otra vez. */
+	private static final Map<País, FutureTask<Void>> cargas = new EnumMap<>(País.class);
+
+	/** Carga los países que falten, en paralelo: el primero en este hilo y el resto en {@link #cargadores}.
+	 * Cada país arma sus antenas por separado y se agrega al índice cuando termina, así que se tarda más o
+	 * menos lo que el país más lento, no la suma.
+	 */
+	public static void cargar(FuenteDeDatos fuente, Set<País> países)
+	{
+		List<FutureTask<Void>> tareas = new ArrayList<>();
+		FutureTask<Void> propia = null;
+		for(País país : países)
+		{
+			if(índice.porPaís.containsKey(país))
+				continue;
+			FutureTask<Void> tarea;
+			boolean nueva;
+			synchronized(cargas)
+			{
+				tarea = cargas.get(país);
+				nueva = tarea == null;
+				if(nueva)
+				{
+					tarea = crearCarga(fuente, país);
+					cargas.put(país, tarea);
+				}
+			}
+			if(nueva)
+			{
+				if(propia == null)
+					propia = tarea;
+				else
+					cargadores.execute(tarea);
+			}
+			tareas.add(tarea);
+		}
+		if(propia != null)
+			propia.run();
+		for(FutureTask<Void> tarea : tareas)
+			esperar(tarea);
+	}
+
+	/** Empieza a cargar un país en {@link #cargadores}, sin esperar a que termine. */
+	private static void cargarEnSegundoPlano(FuenteDeDatos fuente, País país)
+	{
+		if(índice.porPaís.containsKey(país))
+			return;
+		synchronized(cargas)
+		{
+			if(cargas.containsKey(país))
+				return;
+			FutureTask<Void> tarea = crearCarga(fuente, país);
+			cargas.put(país, tarea);
+			cargadores.execute(tarea);
+		}
+	}
+
+	private static FutureTask<Void> crearCarga(final FuenteDeDatos fuente, final País país)
+	{
+		return new FutureTask<>(new Callable<Void>()
+		{
+			@Override
+			public Void call()
+			{
+				try
+				{
+					if(índice.porPaís.containsKey(país))
+						return null;
+					final List<Antena> lista = new ArrayList<>();
+					boolean delXML = leer(fuente, país, lista);
+					synchronized(Antena.class)
+					{
+						índice = índice.con(país, lista);
+					}
+					Métricas.registrarMemoria(país, estimarMemoria(lista));
+					if(delXML)
+						guardarInstantánea(país, lista);
+					return null;
+				} finally
+				{
+					synchronized(cargas)
+					{
+						cargas.remove(país);
+					}
+				}
+			}
+		});
+	}
+
+	/** Escribe la instantánea de un país leído del XML en {@link #guardador}, si se usan instantáneas. */
+	private static void guardarInstantánea(final País país, final List<Antena> lista)
+	{
+		final Instantáneas instantáneas = Antena.instantáneas;
+		if(instantáneas != null)
+			guardador.execute(new Runnable()
+			{
+				@Override
+				public void run()
+				{
+					instantáneas.guardar(país, lista);
+				}
+			});
+	}
+
+	private static void esperar(FutureTask<Void> tarea)
+	{
+		boolean interrumpido = false;
+		try
+		{
+			while(true)
+			{
+				try
+				{
+					tarea.get();
+					return;
+				} catch(InterruptedException e)
+				{
+					interrumpido = true;
+				} catch(ExecutionException e)
+				{
+					Throwable causa = e.getCause();
+					if(causa instanceof RuntimeException)
+						throw (RuntimeException)causa;
+					if(causa instanceof Error)
+						throw (Error)causa;
+					throw new RuntimeException(causa);
+				}
+			}
+		} finally
+		{
+			if(interrumpido)
+				Thread.currentThread().interrupt();
+		}
+	}
+
+	/** Indica dónde guardar las antenas ya leídas, para que los próximos arranques no tengan que leer el XML.
+	 *
+	 * @param i las instantáneas, o null para no usarlas
+	 */
+	public static void usarInstantáneas(Instantáneas i)
+	{
+		instantáneas = i;
+	}
+
+	private static void cargar(FuenteDeDatos fuente, País país)
+	{
+		if(!índice.porPaís.containsKey(país))
+			cargar(fuente, EnumSet.of(país));
+	}
+
+	/** Espera a que se terminen de escribir las instantáneas pendientes. */
+	static void esperarInstantáneas()
+	{
+		FutureTask<Void> tarea = new FutureTask<>(new Runnable()
+		{
+			@Override
+			public void run()
+			{
+			}
+		}, null);
+		guardador.execute(tarea);
+		esperar(tarea);
+	}
+
+	/** Lee las antenas de un país, de la instantánea si hay o si no del XML, sin tocar el índice.
+	 *
+	 * @return si se leyeron del XML, y entonces hay que guardar la instantánea
+	 */
+	private static boolean leer(FuenteDeDatos fuente, País país, List<Antena> lista)
+	{
+		Instantáneas instantáneas = Antena.instantáneas;
+		long antes = System.currentTimeMillis();
+		long t = Métricas.empezar("cargar");
+		String origen = "XML";
+		boolean leída = false;
+		try {
+			if(instantáneas != null)
+			{
+				try
+				{
+					leída = instantáneas.leer(país, lista);
+				} catch(IOException | RuntimeException e)
+				{
+					log.warning("instantánea de " + país + " dañada: " + e);
+					Métricas.contar("instantáneas dañadas");
+					instantáneas.borrar(país);
+					lista.clear();
+				}
+			}
+			if(leída)
+			{
+				origen = "instantánea";
+				Métricas.contar("instantáneas usadas");
+			} else
+				leerXML(fuente, país, lista);
+		} catch (IOException e)
+		{
+			throw new RuntimeException(e);
+		} finally
+		{
+			Métricas.terminar("cargar", t);
+		}
+		log.info(lista.size() + " antenas de " + país + " cargadas de " + origen + " en " + (System.currentTimeMillis() - antes) + "ms");
+		return !leída;
+	}
+
+	private static void leerXML(FuenteDeDatos fuente, País país, List<Antena> lista) throws IOException
+	{
+		InputStream in = fuente.abrir(país);
+		try
+		{
+			LectorAntenas.leer(in, país, lista);
+		} finally
+		{
+			in.close();
+		}
+	}
+
+	/** Olvida las antenas de un país, que se volverán a cargar cuando se las pida.
+	 *
+	 * @param país el país
+	 */
+	public synchronized static void descargar(País país)
+	{
+		if(!índice.porPaís.containsKey(país))
+			return;
+		índice = índice.sin(país);
+		Métricas.registrarMemoria(país, 0);
+	}
+
+	/** Estima cuántos bytes ocupan las antenas, contando encabezados de objeto y strings de 16 bits como en Dalvik. */
+	private static long estimarMemoria(List<Antena> antenas)
+	{
+		long bytes = 16 + 4L * antenas.size();
+		for(Antena antena : antenas)
+		{
+			// La antena, sus coordenadas y su lugar en el mapa de geohashes.
+			bytes += 64 + 24 + 4 + memoria(antena.descripción) + memoria(antena.ref) + memoria(antena.geohash);
+			if(antena.canales != null)
+			{
+				bytes += 24 + 4L * antena.canales.size();
+				for(Canal canal : antena.canales)
+					bytes += 32 + memoria(canal.nombre) + memoria(canal.numero) + memoria(canal.numeroVirtual)
+							+ memoria(canal.cadena) + memoria(canal.ref);
+			}
+		}
+		return bytes;
+	}
+
+	private static long memoria(String s)
+	{
+		return s == null ? 0 : 40 + 2L * s.length();
+	}
+
+	/** Devuelve los países que están cargados. */
+	public static Set<País> dameCargados()
+	{
+		Map<País, List<Antena>> porPaís = índice.porPaís;
+		return porPaís.isEmpty() ? EnumSet.noneOf(País.class) : EnumSet.copyOf(porPaís.keySet());
+	}
+
+	/** Olvida los textos que armó la interfaz para todas las antenas cargadas. Se vuelven a armar cuando se piden. */
+	public static void olvidarTextos()
+	{
+		for(List<Antena> antenas : índice.porPaís.values())
+			for(Antena antena : antenas)
+			{
+				antena.nombre = null;
+				antena.localeNombre = null;
+				antena.detalleCanales = null;
+				antena.localeDetalleCanales = null;
+			}
+	}
+
+	/* Se serializa con Forma, no con el grafo de objetos. */
+	private Object writeReplace()
+	{
+		return new Forma(this);
+	}
+
+	private void readObject(ObjectInputStream in) throws InvalidObjectException
+	{
+		throw new InvalidObjectException("las antenas se leen con Antena.Forma");
+	}
+
+	/** La forma serializada de una antena: coordenadas como números y los strings de la antena y sus canales
+	 * en una tabla, sin repetir, referenciados por posición. Ocupa bastante menos que la serialización por
+	 * omisión y se puede pasar en un Intent o guardar en el estado de una actividad.
+	 */
+	public static final class Forma implements Externalizable
+	{
+		private static final long serialVersionUID = 1L;
+		private static final int VERSIÓN = 1;
+
+		private Antena antena;
+
+		/** Sólo para la serialización. */
+		public Forma()
+		{
+		}
+
+		Forma(Antena antena)
+		{
+			this.antena = antena;
+		}
+
+		@Override
+		public void writeExternal(ObjectOutput out) throws IOException
+		{
+			Map<String, Integer> strings = new LinkedHashMap<>();
+			agregarString(strings, antena.descripción);
+			agregarString(strings, antena.ref);
+			if(antena.canales != null)
+				for(Canal canal : antena.canales)
+				{
+					agregarString(strings, canal.nombre);
+					agregarString(strings, canal.numero);
+					agregarString(strings, canal.numeroVirtual);
+					agregarString(strings, canal.cadena);
+					agregarString(strings, canal.ref);
+				}
+			out.writeByte(VERSIÓN);
+			out.writeByte(antena.país.ordinal());
+			out.writeInt(antena.index);
+			out.writeDouble(antena.c.getLatitude());
+			out.writeDouble(antena.c.getLongitude());
+			out.writeDouble(antena.dist);
+			out.writeShort(strings.size());
+			for(String string : strings.keySet())
+				out.writeUTF(string);
+			out.writeShort(posición(strings, antena.descripción));
+			out.writeShort(posición(strings, antena.ref));
+			out.writeShort(antena.canales == null ? -1 : antena.canales.size());
+			if(antena.canales != null)
+				for(Canal canal : antena.canales)
+				{
+					out.writeShort(posición(strings, canal.nombre));
+					out.writeShort(posición(strings, canal.numero));
+					out.writeShort(posición(strings, canal.numeroVirtual));
+					out.writeShort(posición(strings, canal.cadena));
+					out.writeShort(posición(strings, canal.ref));
+				}
+		}
+
+		@Override
+		public void readExternal(ObjectInput in) throws IOException
+		{
+			int versión = in.readByte();
+			if(versión != VERSIÓN)
+				throw new InvalidObjectException("versión desconocida: " + versión);
+			int p = in.readByte();
+			if(p < 0 || p >= País.values().length)
+				throw new InvalidObjectException("país inválido: " + p);
+			País país = País.values()[p];
+			int index = in.readInt();
+			double lat = in.readDouble(), lon = in.readDouble(), dist = in.readDouble();
+			String[] strings = new String[in.readUnsignedShort()];
+			for(int i = 0 ; i < strings.length ; i++)
+				strings[i] = in.readUTF();
+			antena = new Antena(string(strings, in.readShort()), lat, lon, index, país, string(strings, in.readShort()));
+			antena.dist = dist;
+			int canales = in.readShort();
+			for(int i = 0 ; i < canales ; i++)
+				antena.agregar(new Canal(string(strings, in.readShort()),
+						string(strings, in.readShort()),
+						string(strings, in.readShort()),
+						string(strings, in.readShort()),
+						string(strings, in.readShort())));
+		}
+
+		private Object readResolve()
+		{
+			return antena;
+		}
+
+		private static void agregarString(Map<String, Integer> strings, String s)
+		{
+			if(s != null && !strings.containsKey(s))
+				strings.put(s, strings.size());
+		}
+
+		private static int posición(Map<String, Integer> strings, String s)
+		{
+			return s == null ? -1 : strings.get(s);
+		}
+
+		private static String string(String[] strings, int i) throws InvalidObjectException
+		{
+			if(i == -1)
+				return null;
+			if(i < 0 || i >= strings.length)
+				throw new InvalidObjectException("string inválido: " + i);
+			return strings[i];
+		}
+	}
+
+	/* Al descargar y volver a cargar un país se crean objetos nuevos, que tienen que seguir siendo
+	 * iguales a los que hayan quedado en la interfaz. */
+	@Override
+	public boolean equals(Object o)
+	{
+		if(this == o)
+			return true;
+		if(!(o instanceof Antena))
+			return false;
+		Antena otra = (Antena)o;
+		return index == otra.index && país == otra.país;
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return país.hashCode() * 31 + index;
+	}
+
+	void agregar(Canal canal)
+	{
+		if(canales == null)
+			canales = new ArrayList<>();
+		canales.add(canal);
+	}
+
+	private transient String cadenaPrincipal = null;
+	private transient boolean cadenaPrincipalCalculada = false;
+
+	/** Obtiene la cadena que más canales tiene en esta antena.
+	 *
+	 * @return el nombre normalizado de la cadena (ver {@link Canal#dameCadena()}), o null si ningún
+	 * canal es de una cadena conocida
+	 */
+	public String dameCadenaPrincipal()
+	{
+		if(cadenaPrincipalCalculada)
+			return cadenaPrincipal;
+		String mejor = null;
+		int mejorCuenta = 0;
+		if(canales != null)
+		{
+			int n = canales.size();
+			for(int i = 0 ; i < n ; i++)
+			{
+				String cadena = canales.get(i).dameCadena();
+				if(cadena == null)
+					continue;
+				int cuenta = 1;
+				for(int j = i + 1 ; j < n ; j++)
+					if(cadena.equals(canales.get(j).dameCadena()))
+						cuenta++;
+				if(cuenta > mejorCuenta)
+				{
+					mejor = cadena;
+					mejorCuenta = cuenta;
+				}
+			}
+		}
+		cadenaPrincipal = mejor;
+		cadenaPrincipalCalculada = true;
+		return cadenaPrincipal;
+	}
+
+	private GlobalCoordinates coordsCache = null;
+	private double rumboCacheado, distCacheada;
+
+	public double distanceTo(GlobalCoordinates coords)
+	{
+		calcular(coords);
+		return distCacheada;
+	}
+
+	public double rumboDesde(GlobalCoordinates coords)
+	{
+		calcular(coords);
+		return rumboCacheado;
+	}
+
+	/** Recuerda la distancia y el rumbo ya calculados desde una ubicación, por ejemplo en una sesión anterior. */
+	void recordarCálculo(GlobalCoordinates coords, double dist, double rumbo)
+	{
+		coordsCache = coords;
+		distCacheada = dist;
+		rumboCacheado = rumbo;
+		this.dist = dist;
+	}
+
+	/** Si la distancia y el rumbo desde esas coordenadas ya están calculados. */
+	boolean calculadaDesde(GlobalCoordinates coords)
+	{
+		return coords == coordsCache || coords.equals(coordsCache);
+	}
+
+	private void calcular(GlobalCoordinates coords)
+	{
+		if(calculadaDesde(coords))
+			return;
+		GeodeticCurve curva = GeodeticCalculator.calculateGeodeticCurve(Ellipsoid.WGS84, coords, c);
+		rumboCacheado = curva.getAzimuth();
+		distCacheada = curva.getEllipsoidalDistance();
+		coordsCache = coords;
+	}
+
+	public static List<Antena> dameAntenas(FuenteDeDatos fuente, País país)
+	{
+		List<Antena> l;
+		// Otro hilo lo podría descargar justo después de cargarlo.
+		while((l = índice.porPaís.get(país)) == null)
+			cargar(fuente, país);
+		return l;
+	}
+
+	/** Devuelve una antena en base al número de orden.
+	 *
+	 * Si el país no está cargado y hay una instantánea, se lee sólo esa antena y el resto del país se carga
+	 * en segundo plano. La antena devuelta es igual ({@link #equals}) a la que queda en el índice.
+	 *
+	 * @param index el número de orden
+	 * @return una antena
+	 */
+	public static Antena dameAntena(FuenteDeDatos fuente, País país, int index)
+	{
+		List<Antena> l = índice.porPaís.get(país);
+		if(l != null)
+			return l.get(index);
+		Instantáneas instantáneas = Antena.instantáneas;
+		if(instantáneas != null)
+		{
+			try
+			{
+				Antena antena = instantáneas.leerUna(país, index);
+				if(antena != null)
+				{
+					Métricas.contar("antenas sueltas");
+					cargarEnSegundoPlano(fuente, país);
+					return antena;
+				}
+			} catch(IOException | RuntimeException e)
+			{
+				// La carga completa verifica la instantánea y la descarta.
+				log.warning("no se pudo leer la antena " + index + " de la instantánea de " + país + ": " + e);
+			}
+		}
+		return dameAntenas(fuente, país).get(index);
+	}
+
+	/** Devuelve las antenas de los resultados de una búsqueda sin cargar sus países, para no llenar el índice
+	 * con los de una búsqueda amplia: las de países cargados salen del índice y las demás se leen de a una de
+	 * la instantánea. Un país sin instantánea se lee una sola vez para todos sus resultados y se descarta.
+	 *
+	 * @param resultados las antenas, por país y número de orden
+	 * @return las antenas, en el mismo orden
+	 */
+	public static List<Antena> dameAntenasSueltas(FuenteDeDatos fuente, List<ÍndiceCanales.Resultado> resultados)
+	{
+		Antena[] res = new Antena[resultados.size()];
+		Map<País, List<Antena>> leídos = new EnumMap<>(País.class);
+		Map<País, List<Antena>> porPaís = índice.porPaís;
+		Instantáneas instantáneas = Antena.instantáneas;
+		for(int i = 0 ; i < res.length ; i++)
+		{
+			ÍndiceCanales.Resultado r = resultados.get(i);
+			List<Antena> l = porPaís.get(r.país);
+			if(l == null)
+				l = leídos.get(r.país);
+			if(l != null)
+			{
+				res[i] = l.get(r.index);
+				continue;
+			}
+			if(instantáneas != null)
+			{
+				try
+				{
+					res[i] = instantáneas.leerUna(r.país, r.index);
+				} catch(IOException | RuntimeException e)
+				{
+					log.warning("no se pudo leer la antena " + r.index + " de la instantánea de " + r.país + ": " + e);
+				}
+			}
+			if(res[i] != null)
+			{
+				Métricas.contar("antenas sueltas");
+				continue;
+			}
+			l = new ArrayList<>();
+			if(leer(fuente, r.país, l))
+				guardarInstantánea(r.país, l);
+			leídos.put(r.país, l);
+			res[i] = l.get(r.index);
+		}
+		return Arrays.asList(res);
+	}
+}
@@ -0,0 +1,157 @@
+package ar.com.lichtmaier.antenas;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInput;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutput;
+import java.io.Serializable;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** Un canal que es transmitido por una {@link ar.com.lichtmaier.antenas.Antena}. */
+public class Canal implements Serializable
+{
+	private static final long serialVersionUID = 1L;
+
+	public final String nombre;
+	public final String numero;
+	public final String numeroVirtual;
+	public final String cadena;
+	public final String ref;
+
+	public Canal(String nombre, String numero, String numeroVirtual, String cadena, String ref)
+	{
+
+		this.nombre = nombre;
+		this.numero = numero;
+		this.numeroVirtual = numeroVirtual;
+		this.cadena = cadena;
+		this.ref = ref;
+	}
+
+	/** Obtiene el nombre normalizado de la cadena a la que pertenece el canal, unificando las distintas
+	 * formas en que aparece escrita en los datos.
+	 *
+	 * @return el nombre de la cadena, o null si no es una de las cadenas conocidas
+	 */
+	public String dameCadena()
+	{
+		if(cadena != null) switch(cadena)
+		{
+			case "ABC":
+				return "ABC";
+			case "CBS":
+				return "CBS";
+			case "CW":
+			case "THE CW NETWORK":
+			case "CW TELEVISION NETWOR":
+				return "CW";
+			case "FOX":
+				return "FOX";
+			case "ION":
+				return "ION";
+			case "MYTV":
+			case "MY NETWORK TV":
+			case "MYNETWORK TV":
+			case "MYNETWORKTV":
+			case "MYNETWORK":
+			case "MY NETWORK":
+			case "MNT":
+				return "MYTV";
+			case "NBC":
+				return "NBC";
+			case "PBS":
+			case "PUBLIC BROADCASTING SERVICE":
+				return "PBS";
+			case "TELEMUNDO":
+			case "TELMUNDO":
+				return "TELEMUNDO";
+			case "TRINITY BROADCASTING NETWORK":
+			case "TBN":
+				return "TBN";
+			case "UNIMAS":
+				return "UNIMAS";
+			case "UNIVISION":
+			case "UNVISION":
+				return "UNIVISION";
+		}
+		return null;
+	}
+
+	/* Suelto se serializa con Forma; dentro de una antena lo escribe Antena.Forma. */
+	private Object writeReplace()
+	{
+		return new Forma(this);
+	}
+
+	private void readObject(ObjectInputStream in) throws InvalidObjectException
+	{
+		throw new InvalidObjectException("los canales se leen con Canal.Forma");
+	}
+
+	/** La forma serializada de un canal: sólo sus cinco strings, que pueden ser null. */
+	public static final class Forma implements Externalizable
+	{
+		private static final long serialVersionUID = 1L;
+
+		private Canal canal;
+
+		/** Sólo para la serialización. */
+		public Forma()
+		{
+		}
+
+		Forma(Canal canal)
+		{
+			this.canal = canal;
+		}
+
+		@Override
+		public void writeExternal(ObjectOutput out) throws IOException
+		{
+			escribir(out, canal.nombre);
+			escribir(out, canal.numero);
+			escribir(out, canal.numeroVirtual);
+			escribir(out, canal.cadena);
+			escribir(out, canal.ref);
+		}
+
+		@Override
+		public void readExternal(ObjectInput in) throws IOException
+		{
+			canal = new Canal(leer(in), leer(in), leer(in), leer(in), leer(in));
+		}
+
+		private Object readResolve()
+		{
+			return canal;
+		}
+
+		private static void escribir(ObjectOutput out, String s) throws IOException
+		{
+			out.writeBoolean(s != null);
+			if(s != null)
+				out.writeUTF(s);
+		}
+
+		private static String leer(ObjectInput in) throws IOException
+		{
+			return in.readBoolean() ? in.readUTF() : null;
+		}
+	}
+
+	final private static Pattern patternCanal = Pattern.compile("(?:Canal|Channel) (\\d+)$");
+
+	boolean númeroEnElNombre()
+	{
+		if(nombre != null)
+		{
+			Matcher m = patternCanal.matcher(nombre);
+			if(m.find() && m.group(1).equals(numero))
+				return true;
+		}
+		return false;
+	}
+}
@@ -0,0 +1,264 @@
+package ar.com.lichtmaier.antenas;
+
+import java.util.*;
+
+import org.gavaghan.geodesy.GlobalCoordinates;
+
+import com.github.davidmoten.geo.GeoHash;
+import com.github.davidmoten.geo.LatLong;
+
+/** Recorre las antenas cargadas de la más cercana a la más lejana a un punto, calculando sólo lo que se
+ * pide: se puede cortar después de K antenas, a cierta distancia o cuando una condición deja de cumplirse.
+ *
+ * Las celdas del índice por geohash se tratan como un árbol (cada prefijo tiene hasta 32 hijos) y se
+ * visitan de la más cercana a la más lejana con una cola de prioridad. Una celda entra a la cola con una
+ * cota inferior de la distancia a cualquier punto de ella, y una antena con su distancia exacta, así que
+ * cuando sale una antena no puede quedar ninguna más cerca sin visitar.
+ *
+ * Anota la distancia en {@link Antena#dist} de cada antena que devuelve, así que se tiene que usar desde
+ * el mismo hilo que el resto de las búsquedas.
+ */
+public final class Cercanas implements Iterator<Antena>, Iterable<Antena>
+{
+	private static final double RADIO_TIERRA = 6371008.8;
+	/** La distancia sobre la esfera puede diferir en hasta medio por ciento de la del elipsoide. */
+	private static final double MARGEN = 0.99;
+
+	private static final String BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz";
+	/** Alto y ancho en grados de los geohashes de cada largo. */
+	private static final double[] ALTO = new double[5], ANCHO = new double[5];
+	static
+	{
+		ALTO[0] = 180;
+		ANCHO[0] = 360;
+		for(int i = 1 ; i < ALTO.length ; i++)
+		{
+			ALTO[i] = GeoHash.heightDegrees(i);
+			ANCHO[i] = GeoHash.widthDegrees(i);
+		}
+	}
+
+	/** Algo que se puede cortar: sirve para {@link #mientras}. */
+	public interface Condición
+	{
+		boolean cumple(Antena antena);
+	}
+
+	/** Una celda o una antena en la cola, con su distancia (una cota inferior, para las celdas). */
+	private static final class Elemento implements Comparable<Elemento>
+	{
+		final double distancia;
+		final String celda;
+		final Antena antena;
+
+		Elemento(double distancia, String celda, Antena antena)
+		{
+			this.distancia = distancia;
+			this.celda = celda;
+			this.antena = antena;
+		}
+
+		@Override
+		public int compareTo(Elemento o)
+		{
+			int c = Double.compare(distancia, o.distancia);
+			// A igual distancia, antes las antenas: así una celda nunca demora una antena que ya se sabe cercana.
+			if(c == 0)
+				c = (antena == null ? 1 : 0) - (o.antena == null ? 1 : 0);
+			return c;
+		}
+	}
+
+	private final SortedMap<String, List<Antena>> porGeohash;
+	private final Map<País, BitSet> filtro;
+	private final GlobalCoordinates desde;
+	private final double φ, λ;
+	private final PriorityQueue<Elemento> cola = new PriorityQueue<>();
+
+	/**
+	 * @param porGeohash las antenas por geohash, todas del mismo largo
+	 * @param filtro para cada país, las antenas que se devuelven, o null para todas
+	 * @param desde el punto
+	 */
+	Cercanas(SortedMap<String, List<Antena>> porGeohash, Map<País, BitSet> filtro, GlobalCoordinates desde)
+	{
+		this.porGeohash = porGeohash;
+		this.filtro = filtro;
+		this.desde = desde;
+		φ = Math.toRadians(desde.getLatitude());
+		λ = Math.toRadians(desde.getLongitude());
+		if(!porGeohash.isEmpty())
+			cola.add(new Elemento(0, "", null));
+	}
+
+	/** Devuelve la distancia a la próxima antena, o infinito si no hay más. No la devuelve. */
+	public double distanciaSiguiente()
+	{
+		Elemento e = próxima();
+		return e == null ? Double.POSITIVE_INFINITY : e.distancia;
+	}
+
+	@Override
+	public boolean hasNext()
+	{
+		return próxima() != null;
+	}
+
+	@Override
+	public Antena next()
+	{
+		Elemento e = próxima();
+		if(e == null)
+			throw new NoSuchElementException();
+		cola.poll();
+		e.antena.dist = e.distancia;
+		return e.antena;
+	}
+
+	@Override
+	public void remove()
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	@Override
+	public Iterator<Antena> iterator()
+	{
+		return this;
+	}
+
+	/** Devuelve las próximas antenas, hasta k. */
+	public List<Antena> primeras(int k)
+	{
+		List<Antena> res = new ArrayList<>(Math.min(k, 16));
+		while(res.size() < k && hasNext())
+			res.add(next());
+		return res;
+	}
+
+	/** Devuelve las próximas antenas que están a menos de una distancia, en metros. */
+	public List<Antena> hasta(double distancia)
+	{
+		List<Antena> res = new ArrayList<>();
+		while(distanciaSiguiente() < distancia)
+			res.add(next());
+		return res;
+	}
+
+	/** Devuelve las próximas antenas mientras cumplan una condición. La primera que no la cumple queda
+	 * como la siguiente.
+	 */
+	public List<Antena> mientras(Condición condición)
+	{
+		List<Antena> res = new ArrayList<>();
+		Elemento e;
+		while((e = próxima()) != null)
+		{
+			e.antena.dist = e.distancia;
+			if(!condición.cumple(e.antena))
+				break;
+			res.add(next());
+		}
+		return res;
+	}
+
+	/** Abre celdas hasta que lo primero de la cola sea una antena, y la devuelve sin sacarla. */
+	private Elemento próxima()
+	{
+		Elemento e;
+		while((e = cola.peek()) != null && e.antena == null)
+		{
+			cola.poll();
+			abrir(e.celda);
+		}
+		return e;
+	}
+
+	private void abrir(String celda)
+	{
+		if(celda.length() == 0 || !porGeohash.containsKey(celda))
+		{
+			// Se agregan sólo los hijos que tienen antenas, saltando de uno al siguiente en el mapa ordenado.
+			String clave = celda.length() == 0 ? porGeohash.firstKey() : ceiling(celda);
+			while(clave != null && clave.startsWith(celda) && clave.length() > celda.length())
+			{
+				String hijo = clave.substring(0, celda.length() + 1);
+				cola.add(new Elemento(cotaInferior(hijo), hijo, null));
+				clave = ceiling(siguiente(hijo));
+			}
+			return;
+		}
+		for(Antena antena : porGeohash.get(celda))
+		{
+			if(filtro != null)
+			{
+				BitSet b = filtro.get(antena.país);
+				if(b == null || !b.get(antena.index))
+					continue;
+			}
+			cola.add(new Elemento(antena.distanceTo(desde), null, antena));
+		}
+	}
+
+	private String ceiling(String clave)
+	{
+		SortedMap<String, List<Antena>> resto = porGeohash.tailMap(clave);
+		return resto.isEmpty() ? null : resto.firstKey();
+	}
+
+	/** El primer geohash que viene después de todos los que empiezan con uno dado. */
+	private static String siguiente(String hash)
+	{
+		int len = hash.length();
+		return hash.substring(0, len - 1) + (char)(hash.charAt(len - 1) + 1);
+	}
+
+	/** Una distancia, en metros, que no es mayor que la distancia al punto más cercano de una celda. */
+	private double cotaInferior(String celda)
+	{
+		LatLong centro = GeoHash.decodeHash(celda);
+		double alto = ALTO[celda.length()] / 2, ancho = ANCHO[celda.length()] / 2;
+		double latMín = Math.toRadians(centro.getLat() - alto), latMáx = Math.toRadians(centro.getLat() + alto);
+		double lonMín = Math.toRadians(centro.getLon() - ancho), lonMáx = Math.toRadians(centro.getLon() + ancho);
+		double lon;
+		if(dentro(λ, lonMín, lonMáx))
+		{
+			lon = λ;
+			if(φ >= latMín && φ <= latMáx)
+				return 0;
+		} else
+		{
+			// El meridiano del borde más cercano.
+			lon = Math.abs(diferencia(λ, lonMín)) < Math.abs(diferencia(λ, lonMáx)) ? lonMín : lonMáx;
+		}
+		// El punto más cercano de un meridiano está a esta latitud; sobre el borde, el más cercano es el más
+		// próximo a ella.
+		double cosΔ = Math.cos(diferencia(λ, lon));
+		double lat = cosΔ > 0 ? Math.atan(Math.tan(φ) / cosΔ) : (φ >= 0 ? Math.PI / 2 : -Math.PI / 2);
+		lat = Math.max(latMín, Math.min(latMáx, lat));
+		return MARGEN * distancia(φ, λ, lat, lon);
+	}
+
+	private static boolean dentro(double lon, double mín, double máx)
+	{
+		return diferencia(lon, mín) >= 0 && diferencia(máx, lon) >= 0;
+	}
+
+	/** La diferencia entre dos longitudes, entre -π y π. */
+	private static double diferencia(double a, double b)
+	{
+		double d = (a - b) % (2 * Math.PI);
+		if(d > Math.PI)
+			d -= 2 * Math.PI;
+		else if(d < -Math.PI)
+			d += 2 * Math.PI;
+		return d;
+	}
+
+	private static double distancia(double φ1, double λ1, double φ2, double λ2)
+	{
+		double a = Math.sin((φ2 - φ1) / 2), b = Math.sin((λ2 - λ1) / 2);
+		double h = a * a + Math.cos(φ1) * Math.cos(φ2) * b * b;
+		return 2 * RADIO_TIERRA * Math.asin(Math.min(1, Math.sqrt(h)));
+	}
+}
@@ -0,0 +1,95 @@
+package ar.com.lichtmaier.antenas;
+
+import org.gavaghan.geodesy.GlobalCoordinates;
+
+import java.util.List;
+
+/** Las últimas antenas cercanas buscadas y con qué parámetros. Si se vuelven a pedir con los mismos, por
+ * ejemplo al rotar la pantalla, se devuelve la misma lista sin buscar: las distancias y los rumbos ya
+ * quedaron calculados en cada {@link Antena} desde esas coordenadas.
+ */
+public final class CercanasRetenidas
+{
+	private List<Antena> antenas;
+	private GlobalCoordinates coords;
+	private int maxDist;
+	private boolean menos;
+	private FiltroAntenas filtro;
+
+	private boolean buscó = false;
+	private int búsquedas = 0;
+
+	/** Como {@link Antena#dameAntenasCerca(FuenteDeDatos, GlobalCoordinates, int, boolean, FiltroAntenas)},
+	 * pero si nada cambió desde la última vez devuelve la misma lista.
+	 */
+	public List<Antena> dame(FuenteDeDatos fuente, GlobalCoordinates coords, int maxDist, boolean menos, FiltroAntenas filtro)
+	{
+		buscó = !sirven(coords, maxDist, menos, filtro);
+		if(buscó)
+		{
+			búsquedas++;
+			retener(Antena.dameAntenasCerca(fuente, coords, maxDist, menos, filtro), coords, maxDist, menos, filtro);
+		}
+		return antenas;
+	}
+
+	private boolean sirven(GlobalCoordinates coords, int maxDist, boolean menos, FiltroAntenas filtro)
+	{
+		return antenas != null && maxDist == this.maxDist && menos == this.menos && filtro.equals(this.filtro)
+				&& coords.equals(this.coords);
+	}
+
+	/** Si la última llamada a {@link #dame} tuvo que buscar. */
+	public boolean buscó()
+	{
+		return buscó;
+	}
+
+	/** Cuántas veces se buscó desde que se creó. */
+	public int dameBúsquedas()
+	{
+		return búsquedas;
+	}
+
+	/** Retiene antenas obtenidas de otra forma, por ejemplo las guardadas de la sesión anterior. */
+	public void retener(List<Antena> antenas, GlobalCoordinates coords, int maxDist, boolean menos, FiltroAntenas filtro)
+	{
+		this.antenas = antenas;
+		this.coords = coords;
+		this.maxDist = maxDist;
+		this.menos = menos;
+		this.filtro = filtro;
+	}
+
+	/** Olvida las antenas, para que la próxima vez se busquen aunque los parámetros sean los mismos. */
+	public void olvidar()
+	{
+		antenas = null;
+	}
+
+	/** @return las antenas retenidas, o null si no hay */
+	public List<Antena> dameAntenas()
+	{
+		return antenas;
+	}
+
+	public GlobalCoordinates dameCoordenadas()
+	{
+		return coords;
+	}
+
+	public int dameMaxDist()
+	{
+		return maxDist;
+	}
+
+	public boolean muestraMenos()
+	{
+		return menos;
+	}
+
+	public FiltroAntenas dameFiltro()
+	{
+		return filtro;
+	}
+}
@@ -0,0 +1,91 @@
+package ar.com.lichtmaier.antenas;
+
+import java.util.Collections;
+import java.util.Set;
+import java.util.TreeSet;
+
+/** Qué antenas mostrar: las que transmiten alguna de ciertas cadenas y las que tienen algún canal físico
+ * en un rango. Se aplica con los bits de {@link ÍndiceCadenas} dentro de las búsquedas de {@link Antena}.
+ */
+public final class FiltroAntenas
+{
+	/** No filtra nada. */
+	public static final FiltroAntenas TODAS = new FiltroAntenas(null, 0, Integer.MAX_VALUE);
+
+	/** Los nombres normalizados (ver {@link Canal#dameCadena()}), o null para cualquiera. */
+	final Set<String> cadenas;
+	final int canalMínimo, canalMáximo;
+
+	/**
+	 * @param cadenas las cadenas, o null o vacío para no filtrar por cadena
+	 * @param canalMínimo y
+	 * @param canalMáximo el rango de canales físicos, inclusive
+	 */
+	public FiltroAntenas(Set<String> cadenas, int canalMínimo, int canalMáximo)
+	{
+		this.cadenas = cadenas == null || cadenas.isEmpty() ? null : Collections.unmodifiableSet(new TreeSet<>(cadenas));
+		this.canalMínimo = canalMínimo;
+		this.canalMáximo = canalMáximo;
+	}
+
+	/** Devuelve si deja afuera alguna antena. */
+	public boolean filtraAlgo()
+	{
+		return cadenas != null || canalMínimo > 0 || canalMáximo != Integer.MAX_VALUE;
+	}
+
+	/** Devuelve si una antena pasa el filtro, mirando sus canales. Las búsquedas usan los bits del índice;
+	 * esto es para antenas sueltas.
+	 */
+	public boolean acepta(Antena antena)
+	{
+		if(!filtraAlgo())
+			return true;
+		if(antena.canales == null)
+			return false;
+		boolean cadena = cadenas == null, canal = canalMínimo <= 0 && canalMáximo == Integer.MAX_VALUE;
+		for(Canal c : antena.canales)
+		{
+			String cc = ÍndiceCadenas.dameCadena(c);
+			if(cc != null && cadenas != null && cadenas.contains(cc))
+				cadena = true;
+			int n = ÍndiceCadenas.dameNúmero(c);
+			if(n >= 0 && n >= canalMínimo && n <= canalMáximo)
+				canal = true;
+		}
+		return cadena && canal;
+	}
+
+	@Override
+	public boolean equals(Object o)
+	{
+		if(this == o)
+			return true;
+		if(!(o instanceof FiltroAntenas))
+			return false;
+		FiltroAntenas otro = (FiltroAntenas)o;
+		return canalMínimo == otro.canalMínimo && canalMáximo == otro.canalMáximo
+				&& (cadenas == null ? otro.cadenas == null : cadenas.equals(otro.cadenas));
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return ((cadenas == null ? 0 : cadenas.hashCode()) * 31 + canalMínimo) * 31 + canalMáximo;
+	}
+
+	/** Una forma de texto que sirve para guardarlo y compararlo, por ejemplo "NBC,PBS|14-51". No tiene ';'. */
+	@Override
+	public String toString()
+	{
+		StringBuilder sb = new StringBuilder();
+		if(cadenas != null)
+			for(String cadena : cadenas)
+			{
+				if(sb.length() > 0)
+					sb.append(',');
+				sb.append(cadena);
+			}
+		return sb.append('|').append(canalMínimo).append('-').append(canalMáximo).toString();
+	}
+}
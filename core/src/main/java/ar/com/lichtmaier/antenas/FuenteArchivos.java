@@ -0,0 +1,26 @@
+package ar.com.lichtmaier.antenas;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/** Lee los archivos de antenas de un directorio, con los mismos nombres que tienen en los recursos
+ * de la aplicación (<code>antenas_ar.xml</code>, etc.).
+ */
+public class FuenteArchivos implements FuenteDeDatos
+{
+	private final File dir;
+
+	public FuenteArchivos(File dir)
+	{
+		this.dir = dir;
+	}
+
+	@Override
+	public InputStream abrir(País país) throws IOException
+	{
+		return new BufferedInputStream(new FileInputStream(new File(dir, "antenas_" + país.name().toLowerCase() + ".xml")));
+	}
+}
@@ -0,0 +1,15 @@
+package ar.com.lichtmaier.antenas;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/** De dónde se leen los archivos de antenas de cada país. */
+public interface FuenteDeDatos
+{
+	/** Abre el archivo de antenas de un país.
+	 *
+	 * @param país el país
+	 * @return el contenido del archivo, que quien llama se encarga de cerrar
+	 */
+	InputStream abrir(País país) throws IOException;
+}
@@ -0,0 +1,499 @@
+package ar.com.lichtmaier.antenas;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.logging.Logger;
+import java.util.zip.CRC32;
+
+/** Copias binarias de las antenas ya leídas de cada país, para no interpretar el XML en cada arranque.
+ *
+ * Cada archivo lleva la versión de la aplicación que lo generó: si no coincide, o si la suma de
+ * verificación no da, se borra y se vuelve a leer el XML.
+ *
+ * <p>Formato, todo big-endian: {@link #MAGIA}, {@link #FORMATO}, la versión, el país, la tabla de strings,
+ * las antenas y un CRC32 de todo lo anterior. Los strings se guardan una sola vez en la tabla y las
+ * antenas y canales los referencian por posición (-1 es null). Cada string va en UTF-8 modificado, como lo
+ * escribe {@link DataOutputStream#writeUTF}.</p>
+ *
+ * <p>Tanto los strings como las antenas van precedidos por la cantidad y una tabla con la posición en el
+ * archivo de cada uno, para poder leer una sola antena sin recorrer las demás ({@link #leerUna}).</p>
+ */
+public class Instantáneas
+{
+	private static final Logger log = Logger.getLogger("antenas");
+
+	/** "ANT1" */
+	private static final int MAGIA = 0x414e5431;
+	private static final int FORMATO = 3;
+
+	private final File dir;
+	private final String versión;
+
+	/**
+	 * @param dir el directorio donde guardar los archivos
+	 * @param versión la versión de la aplicación; las instantáneas de otras versiones no se usan
+	 */
+	public Instantáneas(File dir, String versión)
+	{
+		this.dir = dir;
+		this.versión = versión;
+	}
+
+	File archivo(País país)
+	{
+		return new File(dir, "antenas_" + país.name().toLowerCase() + ".bin");
+	}
+
+	void borrar(País país)
+	{
+		cerrar(país);
+		File f = archivo(país);
+		if(f.exists() && !f.delete())
+			log.warning("no se pudo borrar " + f);
+	}
+
+	/** Guarda las antenas de un país. Si falla sólo se avisa: la próxima vez se leerá el XML de nuevo. */
+	void guardar(País país, List<Antena> antenas)
+	{
+		Map<String, Integer> strings = new LinkedHashMap<>();
+		for(Antena antena : antenas)
+		{
+			agregarString(strings, antena.descripción);
+			agregarString(strings, antena.ref);
+			if(antena.canales != null)
+				for(Canal canal : antena.canales)
+				{
+					agregarString(strings, canal.nombre);
+					agregarString(strings, canal.numero);
+					agregarString(strings, canal.numeroVirtual);
+					agregarString(strings, canal.cadena);
+					agregarString(strings, canal.ref);
+				}
+		}
+		try
+		{
+			ByteArrayOutputStream bytes = new ByteArrayOutputStream(antenas.size() * 64);
+			DataOutputStream out = new DataOutputStream(bytes);
+			out.writeInt(MAGIA);
+			out.writeInt(FORMATO);
+			escribirString(out, versión);
+			out.writeByte(país.ordinal());
+
+			// Las posiciones son desde el principio del archivo, así que hay que saber dónde empieza cada sección.
+			ByteArrayOutputStream sección = new ByteArrayOutputStream();
+			DataOutputStream s = new DataOutputStream(sección);
+			int[] posiciones = new int[strings.size()];
+			int i = 0;
+			for(String string : strings.keySet())
+			{
+				posiciones[i++] = s.size();
+				escribirString(s, string);
+			}
+			escribirSección(out, posiciones, sección);
+
+			sección.reset();
+			s = new DataOutputStream(sección);
+			posiciones = new int[antenas.size()];
+			i = 0;
+			for(Antena antena : antenas)
+			{
+				posiciones[i++] = s.size();
+				s.writeDouble(antena.dameCoordenadas().getLatitude());
+				s.writeDouble(antena.dameCoordenadas().getLongitude());
+				s.writeInt(posición(strings, antena.descripción));
+				s.writeInt(posición(strings, antena.ref));
+				s.writeShort(antena.canales == null ? -1 : antena.canales.size());
+				if(antena.canales != null)
+					for(Canal canal : antena.canales)
+					{
+						s.writeInt(posición(strings, canal.nombre));
+						s.writeInt(posición(strings, canal.numero));
+						s.writeInt(posición(strings, canal.numeroVirtual));
+						s.writeInt(posición(strings, canal.cadena));
+						s.writeInt(posición(strings, canal.ref));
+					}
+			}
+			escribirSección(out, posiciones, sección);
+			out.flush();
+			CRC32 crc = new CRC32();
+			byte[] contenido = bytes.toByteArray();
+			crc.update(contenido);
+
+			if(!dir.isDirectory() && !dir.mkdirs())
+				throw new IOException("no se pudo crear " + dir);
+			// Se escribe aparte y se renombra, para que un corte a la mitad no deje un archivo incompleto.
+			File tmp = new File(dir, archivo(país).getName() + ".tmp");
+			OutputStream os = new FileOutputStream(tmp);
+			try
+			{
+				os.write(contenido);
+				DataOutputStream dos = new DataOutputStream(os);
+				dos.writeLong(crc.getValue());
+				dos.flush();
+			} finally
+			{
+				os.close();
+			}
+			cerrar(país);
+			if(!tmp.renameTo(archivo(país)))
+				throw new IOException("no se pudo renombrar " + tmp);
+		} catch(IOException e)
+		{
+			log.warning("no se pudo guardar la instantánea de " + país + ": " + e);
+		}
+	}
+
+	/** Lee las antenas de un país de su instantánea.
+	 *
+	 * @param país el país
+	 * @param antenas la lista donde agregar las antenas leídas
+	 * @return si había una instantánea válida; si no, la lista queda vacía
+	 * @throws IOException si el archivo está dañado
+	 */
+	boolean leer(País país, List<Antena> antenas) throws IOException
+	{
+		// Con el país entero en memoria ya no se leen antenas sueltas.
+		cerrar(país);
+		File f = archivo(país);
+		if(!f.exists())
+			return false;
+		RandomAccessFile raf = new RandomAccessFile(f, "r");
+		try
+		{
+			FileChannel canal = raf.getChannel();
+			long largo = canal.size();
+			if(largo < 8 + 8 || largo > Integer.MAX_VALUE)
+				throw new IOException("tamaño inválido: " + largo);
+			MappedByteBuffer buf = canal.map(FileChannel.MapMode.READ_ONLY, 0, largo);
+			if(buf.getInt() != MAGIA || buf.getInt() != FORMATO || !versión.equals(leerString(buf)) || buf.get() != país.ordinal())
+			{
+				log.info("instantánea de " + país + " de otra versión, se descarta");
+				borrar(país);
+				return false;
+			}
+			verificar(buf, (int)largo - 8);
+			buf.position(8);
+			leerString(buf);
+			buf.get();
+			int tabla = buf.position() + 4;
+			String[] strings = new String[buf.getInt()];
+			buf.position(tabla + 4 * strings.length);
+			for(int i = 0 ; i < strings.length ; i++)
+			{
+				if(buf.getInt(tabla + 4 * i) != buf.position())
+					throw new IOException("tabla de strings inválida");
+				strings[i] = leerString(buf);
+			}
+			tabla = buf.position() + 4;
+			int n = buf.getInt();
+			buf.position(tabla + 4 * n);
+			for(int i = 0 ; i < n ; i++)
+			{
+				if(buf.getInt(tabla + 4 * i) != buf.position())
+					throw new IOException("tabla de antenas inválida");
+				antenas.add(leerAntena(buf, país, i, strings, 0, 0));
+			}
+			if(buf.position() != largo - 8)
+				throw new IOException("sobran " + (largo - 8 - buf.position()) + " bytes");
+			return true;
+		} finally
+		{
+			raf.close();
+		}
+	}
+
+	/** Una instantánea ya abierta para leer antenas sueltas: el archivo mapeado y dónde empiezan sus tablas. */
+	private static final class Abierta
+	{
+		/** Con el límite antes del CRC. Cada lectura usa un duplicado, para no compartir la posición. */
+		final ByteBuffer buf;
+		final int tablaStrings, nStrings, tablaAntenas, nAntenas;
+
+		Abierta(ByteBuffer buf, int tablaStrings, int nStrings, int tablaAntenas, int nAntenas)
+		{
+			this.buf = buf;
+			this.tablaStrings = tablaStrings;
+			this.nStrings = nStrings;
+			this.tablaAntenas = tablaAntenas;
+			this.nAntenas = nAntenas;
+		}
+	}
+
+	/** Las instantáneas abiertas por {@link #leerUna}, hasta que se guarde, se borre o se lea entera. */
+	private final Map<País, Abierta> abiertas = new EnumMap<>(País.class);
+
+	private void cerrar(País país)
+	{
+		synchronized(abiertas)
+		{
+			abiertas.remove(país);
+		}
+	}
+
+	/** Lee una sola antena de la instantánea de un país, sin leer las demás ni sus strings.
+	 *
+	 * <p>Para que tarde lo mismo sin importar el tamaño del archivo no se verifica la suma: sólo se controla
+	 * que las posiciones estén dentro del archivo. La carga completa, que sí la verifica, descarta la
+	 * instantánea si está dañada.</p>
+	 *
+	 * <p>El archivo se abre y se mapea la primera vez; las siguientes lecturas del mismo país sólo leen la
+	 * antena.</p>
+	 *
+	 * @param país el país
+	 * @param index el número de orden de la antena
+	 * @return la antena, o null si no hay una instantánea de esta versión
+	 * @throws IOException si el archivo está dañado
+	 */
+	Antena leerUna(País país, int index) throws IOException
+	{
+		Abierta abierta;
+		synchronized(abiertas)
+		{
+			abierta = abiertas.get(país);
+			if(abierta == null)
+			{
+				abierta = abrir(país);
+				if(abierta == null)
+					return null;
+				abiertas.put(país, abierta);
+			}
+		}
+		if(index < 0 || index >= abierta.nAntenas)
+			throw new IOException("antena inválida: " + index + " de " + abierta.nAntenas);
+		ByteBuffer buf = abierta.buf.duplicate();
+		buf.position(posiciónVálida(buf, buf.getInt(abierta.tablaAntenas + 4 + 4 * index)));
+		return leerAntena(buf, país, index, null, abierta.tablaStrings, abierta.nStrings);
+	}
+
+	/** Mapea la instantánea de un país y ubica sus tablas.
+	 *
+	 * @return null si no hay una instantánea de esta versión
+	 */
+	private Abierta abrir(País país) throws IOException
+	{
+		File f = archivo(país);
+		if(!f.exists())
+			return null;
+		RandomAccessFile raf = new RandomAccessFile(f, "r");
+		try
+		{
+			FileChannel canal = raf.getChannel();
+			long largo = canal.size();
+			if(largo < 8 + 8 || largo > Integer.MAX_VALUE)
+				throw new IOException("tamaño inválido: " + largo);
+			// El mapeo sigue valiendo después de cerrar el archivo.
+			MappedByteBuffer buf = canal.map(FileChannel.MapMode.READ_ONLY, 0, largo);
+			if(buf.getInt() != MAGIA || buf.getInt() != FORMATO || !versión.equals(leerString(buf)) || buf.get() != país.ordinal())
+				return null;
+			buf.limit((int)largo - 8);
+			int tablaStrings = buf.position();
+			int nStrings = buf.getInt();
+			if(nStrings < 0 || nStrings > buf.remaining() / 4)
+				throw new IOException("tabla de strings inválida");
+			// La sección de antenas empieza después del último string.
+			buf.position(tablaStrings + 4 + 4 * nStrings);
+			if(nStrings > 0)
+			{
+				buf.position(posiciónVálida(buf, buf.getInt(tablaStrings + 4 * nStrings)));
+				leerString(buf);
+			}
+			int tablaAntenas = buf.position();
+			int n = buf.getInt();
+			if(n < 0 || n > buf.remaining() / 4)
+				throw new IOException("tabla de antenas inválida");
+			return new Abierta(buf, tablaStrings, nStrings, tablaAntenas, n);
+		} finally
+		{
+			raf.close();
+		}
+	}
+
+	/** Lee una antena desde la posición actual. Los strings salen de la tabla ya leída o, si no hay, se leen
+	 * del archivo usando la tabla de posiciones.
+	 */
+	private static Antena leerAntena(ByteBuffer buf, País país, int index, String[] strings, int tablaStrings, int nStrings) throws IOException
+	{
+		double lat = buf.getDouble(), lon = buf.getDouble();
+		int desc = buf.getInt(), ref = buf.getInt();
+		Antena antena = new Antena(string(buf, strings, tablaStrings, nStrings, desc), lat, lon, index, país, string(buf, strings, tablaStrings, nStrings, ref));
+		int canales = buf.getShort();
+		for(int j = 0 ; j < canales ; j++)
+		{
+			int nombre = buf.getInt(), numero = buf.getInt(), numeroVirtual = buf.getInt(), cadena = buf.getInt(), r = buf.getInt();
+			antena.agregar(new Canal(string(buf, strings, tablaStrings, nStrings, nombre),
+					string(buf, strings, tablaStrings, nStrings, numero),
+					string(buf, strings, tablaStrings, nStrings, numeroVirtual),
+					string(buf, strings, tablaStrings, nStrings, cadena),
+					string(buf, strings, tablaStrings, nStrings, r)));
+		}
+		return antena;
+	}
+
+	private static String string(ByteBuffer buf, String[] strings, int tablaStrings, int nStrings, int i) throws IOException
+	{
+		if(strings != null)
+			return string(strings, i);
+		if(i == -1)
+			return null;
+		if(i < 0 || i >= nStrings)
+			throw new IOException("string inválido: " + i);
+		int posición = buf.position();
+		buf.position(posiciónVálida(buf, buf.getInt(tablaStrings + 4 + 4 * i)));
+		String s = leerString(buf);
+		buf.position(posición);
+		return s;
+	}
+
+	private static int posiciónVálida(ByteBuffer buf, int posición) throws IOException
+	{
+		if(posición < 0 || posición >= buf.limit())
+			throw new IOException("posición inválida: " + posición);
+		return posición;
+	}
+
+	/** Escribe la cantidad, la tabla de posiciones (ya corridas al lugar donde quedará la sección) y la sección. */
+	private static void escribirSección(DataOutputStream out, int[] posiciones, ByteArrayOutputStream sección) throws IOException
+	{
+		int inicio = out.size() + 4 + 4 * posiciones.length;
+		out.writeInt(posiciones.length);
+		for(int posición : posiciones)
+			out.writeInt(inicio + posición);
+		sección.writeTo(out);
+	}
+
+	/** Compara el CRC del final con el del contenido, sin copiar el archivo entero a memoria. */
+	private static void verificar(MappedByteBuffer buf, int largo) throws IOException
+	{
+		CRC32 crc = new CRC32();
+		byte[] bloque = new byte[8192];
+		buf.position(0);
+		while(buf.position() < largo)
+		{
+			int n = Math.min(bloque.length, largo - buf.position());
+			buf.get(bloque, 0, n);
+			crc.update(bloque, 0, n);
+		}
+		if(buf.getLong() != crc.getValue())
+			throw new IOException("la suma de verificación no coincide");
+	}
+
+	/** Calcula una suma de verificación del contenido de las antenas, para comparar dos cargas. */
+	public static long huella(List<Antena> antenas)
+	{
+		CRC32 crc = new CRC32();
+		ByteBuffer buf = ByteBuffer.allocate(20);
+		for(Antena antena : antenas)
+		{
+			buf.clear();
+			buf.putDouble(antena.dameCoordenadas().getLatitude());
+			buf.putDouble(antena.dameCoordenadas().getLongitude());
+			buf.putInt(antena.index);
+			crc.update(buf.array(), 0, buf.position());
+			huella(crc, antena.descripción);
+			huella(crc, antena.ref);
+			huella(crc, antena.geohash);
+			if(antena.canales == null)
+			{
+				crc.update(0xff);
+				continue;
+			}
+			crc.update(antena.canales.size());
+			for(Canal canal : antena.canales)
+			{
+				huella(crc, canal.nombre);
+				huella(crc, canal.numero);
+				huella(crc, canal.numeroVirtual);
+				huella(crc, canal.cadena);
+				huella(crc, canal.ref);
+			}
+		}
+		return crc.getValue();
+	}
+
+	private static void huella(CRC32 crc, String s)
+	{
+		if(s == null)
+		{
+			crc.update(0);
+			return;
+		}
+		crc.update(1);
+		for(int i = 0 ; i < s.length() ; i++)
+		{
+			char c = s.charAt(i);
+			crc.update(c >> 8);
+			crc.update(c);
+		}
+	}
+
+	private static void agregarString(Map<String, Integer> strings, String s)
+	{
+		if(s != null && !strings.containsKey(s))
+			strings.put(s, strings.size());
+	}
+
+	private static int posición(Map<String, Integer> strings, String s)
+	{
+		return s == null ? -1 : strings.get(s);
+	}
+
+	private static String string(String[] strings, int i) throws IOException
+	{
+		if(i == -1)
+			return null;
+		if(i < 0 || i >= strings.length)
+			throw new IOException("string inválido: " + i);
+		return strings[i];
+	}
+
+	private static void escribirString(DataOutputStream out, String s) throws IOException
+	{
+		out.writeUTF(s);
+	}
+
+	/** Lee un string escrito con {@link DataOutputStream#writeUTF} directamente del buffer. */
+	private static String leerString(ByteBuffer buf) throws IOException
+	{
+		int n = buf.getShort() & 0xffff;
+		if(n > buf.remaining())
+			throw new IOException("string demasiado largo: " + n);
+		int fin = buf.position() + n;
+		char[] cs = new char[n];
+		int i = 0;
+		while(buf.position() < fin)
+		{
+			int a = buf.get() & 0xff;
+			if(a < 0x80)
+				cs[i++] = (char)a;
+			else if((a & 0xe0) == 0xc0)
+				cs[i++] = (char)((a & 0x1f) << 6 | continuación(buf, fin));
+			else if((a & 0xf0) == 0xe0)
+				cs[i++] = (char)((a & 0x0f) << 12 | continuación(buf, fin) << 6 | continuación(buf, fin));
+			else
+				throw new IOException("UTF-8 inválido en la posición " + (buf.position() - 1));
+		}
+		return new String(cs, 0, i);
+	}
+
+	private static int continuación(ByteBuffer buf, int fin) throws IOException
+	{
+		if(buf.position() >= fin)
+			throw new IOException("string cortado en la posición " + buf.position());
+		int b = buf.get() & 0xff;
+		if((b & 0xc0) != 0x80)
+			throw new IOException("UTF-8 inválido en la posición " + (buf.position() - 1));
+		return b & 0x3f;
+	}
+}
@@ -0,0 +1,465 @@
+package ar.com.lichtmaier.antenas;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.List;
+
+/** Lee los archivos de antenas directamente de los bytes, sin pasar por un parser de XML.
+ *
+ * Sólo entiende el esquema de los archivos de la aplicación: <code>&lt;antena&gt;</code> con
+ * <code>&lt;canal&gt;</code> adentro. Las coordenadas se leen sin armar strings y los valores de los
+ * atributos que se repiten (cadenas, números de canal) se comparten a través de una tabla, así que leer
+ * una antena sólo reserva memoria para los objetos que quedan cargados.
+ */
+final class LectorAntenas
+{
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private static final byte[] ANTENA = bytes("antena"), CANAL = bytes("canal"),
+			DESC = bytes("desc"), LAT = bytes("lat"), LON = bytes("lon"), REF = bytes("ref"),
+			NOMBRE = bytes("nombre"), NUMERO = bytes("numero"), NUMERO_VIRTUAL = bytes("numero_virtual"), CADENA = bytes("cadena");
+
+	/** Potencias de diez que se pueden representar exactamente en un double. */
+	private static final double[] POTENCIAS = new double[23];
+	static
+	{
+		POTENCIAS[0] = 1;
+		for(int i = 1 ; i < POTENCIAS.length ; i++)
+			POTENCIAS[i] = POTENCIAS[i - 1] * 10;
+	}
+
+	private final byte[] buf;
+	private final int fin;
+	private int pos;
+
+	// Tabla de strings: direccionamiento abierto, con el hash de String.
+	private String[] tabla = new String[256];
+	private int[] hashes = new int[256];
+	private int usados = 0;
+
+	// Los atributos del elemento que se está leyendo, como posiciones en el buffer.
+	private int descIni, descFin, refIni, refFin, nombreIni, nombreFin, numeroIni, numeroFin,
+			virtualIni, virtualFin, cadenaIni, cadenaFin;
+	private double lat, lon;
+	private boolean hayLat, hayLon;
+
+	LectorAntenas(byte[] buf, int largo)
+	{
+		this.buf = buf;
+		this.fin = largo;
+	}
+
+	/** Lee todo el archivo de antenas de un país.
+	 *
+	 * @param in el contenido del archivo, que no se cierra
+	 * @param país el país
+	 * @param lista dónde agregar las antenas leídas
+	 */
+	static void leer(InputStream in, País país, List<Antena> lista) throws IOException
+	{
+		byte[] buf = new byte[Math.max(in.available(), 8192) + 1];
+		int n = 0, r;
+		while((r = in.read(buf, n, buf.length - n)) != -1)
+		{
+			n += r;
+			if(n == buf.length)
+				buf = Arrays.copyOf(buf, buf.length * 2);
+		}
+		new LectorAntenas(buf, n).leer(país, lista);
+	}
+
+	void leer(País país, List<Antena> lista) throws IOException
+	{
+		Antena antena = null;
+		int index = 0;
+		while(true)
+		{
+			int i = buscar((byte)'<', pos);
+			if(i < 0)
+				break;
+			pos = i + 1;
+			if(pos >= fin)
+				throw error("archivo cortado");
+			byte c = buf[pos];
+			if(c == '/')
+			{
+				int ini = ++pos;
+				int f = finDeNombre(ini);
+				if(igual(ini, f, ANTENA))
+					antena = null;
+				pos = saltar(f);
+				continue;
+			}
+			if(c == '!' || c == '?')
+			{
+				saltarDeclaración();
+				continue;
+			}
+			int ini = pos;
+			int f = finDeNombre(ini);
+			pos = f;
+			if(igual(ini, f, ANTENA))
+			{
+				limpiar();
+				boolean cerrado = leerAtributos();
+				if(!hayLat || !hayLon)
+					throw error("antena sin coordenadas");
+				antena = new Antena(valor(descIni, descFin), lat, lon, index++, país, valor(refIni, refFin));
+				lista.add(antena);
+				if(cerrado)
+					antena = null;
+			} else if(igual(ini, f, CANAL))
+			{
+				if(antena == null)
+					throw error("canal sin antena?");
+				limpiar();
+				leerAtributos();
+				antena.agregar(new Canal(valor(nombreIni, nombreFin), valor(numeroIni, numeroFin),
+						valor(virtualIni, virtualFin), valor(cadenaIni, cadenaFin), valor(refIni, refFin)));
+			} else
+			{
+				// <antenas> y cualquier otro elemento: se ignoran sus atributos.
+				pos = saltar(pos);
+			}
+		}
+	}
+
+	private void limpiar()
+	{
+		descIni = refIni = nombreIni = numeroIni = virtualIni = cadenaIni = -1;
+		hayLat = hayLon = false;
+	}
+
+	/** Lee los atributos hasta el final de la etiqueta.
+	 *
+	 * @return si la etiqueta se cierra sola (<code>/&gt;</code>)
+	 */
+	private boolean leerAtributos() throws IOException
+	{
+		while(true)
+		{
+			while(pos < fin && espacio(buf[pos]))
+				pos++;
+			if(pos >= fin)
+				throw error("archivo cortado");
+			byte c = buf[pos];
+			if(c == '>')
+			{
+				pos++;
+				return false;
+			}
+			if(c == '/')
+			{
+				if(pos + 1 >= fin || buf[pos + 1] != '>')
+					throw error("se esperaba '>'");
+				pos += 2;
+				return true;
+			}
+			int ini = pos;
+			while(pos < fin && buf[pos] != '=' && !espacio(buf[pos]))
+				pos++;
+			int f = pos;
+			while(pos < fin && espacio(buf[pos]))
+				pos++;
+			if(pos >= fin || buf[pos] != '=')
+				throw error("se esperaba '='");
+			pos++;
+			while(pos < fin && espacio(buf[pos]))
+				pos++;
+			if(pos >= fin || (buf[pos] != '"' && buf[pos] != '\''))
+				throw error("se esperaba un valor");
+			byte comilla = buf[pos++];
+			int vIni = pos;
+			int vFin = buscar(comilla, pos);
+			if(vFin < 0)
+				throw error("archivo cortado");
+			pos = vFin + 1;
+			atributo(ini, f, vIni, vFin);
+		}
+	}
+
+	private void atributo(int ini, int f, int vIni, int vFin) throws IOException
+	{
+		if(igual(ini, f, LAT))
+		{
+			lat = número(vIni, vFin);
+			hayLat = true;
+		} else if(igual(ini, f, LON))
+		{
+			lon = número(vIni, vFin);
+			hayLon = true;
+		} else if(igual(ini, f, DESC))
+		{
+			descIni = vIni;
+			descFin = vFin;
+		} else if(igual(ini, f, REF))
+		{
+			refIni = vIni;
+			refFin = vFin;
+		} else if(igual(ini, f, NOMBRE))
+		{
+			nombreIni = vIni;
+			nombreFin = vFin;
+		} else if(igual(ini, f, NUMERO))
+		{
+			numeroIni = vIni;
+			numeroFin = vFin;
+		} else if(igual(ini, f, NUMERO_VIRTUAL))
+		{
+			virtualIni = vIni;
+			virtualFin = vFin;
+		} else if(igual(ini, f, CADENA))
+		{
+			cadenaIni = vIni;
+			cadenaFin = vFin;
+		}
+	}
+
+	/** Lee un número decimal sin armar un string.
+	 *
+	 * Mientras la mantisa y la cantidad de decimales entren en un double sin redondeo, una sola división da
+	 * el mismo resultado que {@link Double#parseDouble(String)}. Si no, se usa ese método.
+	 */
+	private double número(int ini, int f) throws IOException
+	{
+		int i = ini;
+		boolean negativo = false;
+		if(i < f && (buf[i] == '-' || buf[i] == '+'))
+			negativo = buf[i++] == '-';
+		long mantisa = 0;
+		int dígitos = 0, decimales = -1;
+		for( ; i < f ; i++)
+		{
+			byte c = buf[i];
+			if(c >= '0' && c <= '9')
+			{
+				mantisa = mantisa * 10 + (c - '0');
+				dígitos++;
+				if(decimales >= 0)
+					decimales++;
+			} else if(c == '.' && decimales < 0)
+			{
+				decimales = 0;
+			} else
+			{
+				dígitos = -1;
+				break;
+			}
+		}
+		if(dígitos <= 0 || dígitos > 15 || decimales >= POTENCIAS.length)
+		{
+			try
+			{
+				return Double.parseDouble(valor(ini, f));
+			} catch(NumberFormatException e)
+			{
+				throw error("número inválido: " + valor(ini, f));
+			}
+		}
+		double v = decimales > 0 ? mantisa / POTENCIAS[decimales] : mantisa;
+		return negativo ? -v : v;
+	}
+
+	/** Devuelve el valor de un atributo, compartiendo el string con los valores iguales ya leídos.
+	 *
+	 * @return el valor, o null si el atributo no estaba
+	 */
+	private String valor(int ini, int f) throws IOException
+	{
+		if(ini < 0)
+			return null;
+		// El hash de los bytes ASCII coincide con el de String, así que se puede buscar sin armar el string.
+		int h = 0;
+		for(int i = ini ; i < f ; i++)
+		{
+			byte c = buf[i];
+			if(c < 0x20 || c == '&') // incluye los bytes no ASCII, que son negativos
+				return intern(decodificar(ini, f));
+			h = 31 * h + c;
+		}
+		int máscara = tabla.length - 1;
+		for(int i = h & máscara ; ; i = (i + 1) & máscara)
+		{
+			String s = tabla[i];
+			if(s == null)
+			{
+				s = new String(buf, ini, f - ini, UTF8);
+				poner(i, h, s);
+				return s;
+			}
+			if(hashes[i] == h && igual(ini, f, s))
+				return s;
+		}
+	}
+
+	private String intern(String s)
+	{
+		int h = s.hashCode();
+		int máscara = tabla.length - 1;
+		for(int i = h & máscara ; ; i = (i + 1) & máscara)
+		{
+			String t = tabla[i];
+			if(t == null)
+			{
+				poner(i, h, s);
+				return s;
+			}
+			if(hashes[i] == h && t.equals(s))
+				return t;
+		}
+	}
+
+	private void poner(int i, int h, String s)
+	{
+		tabla[i] = s;
+		hashes[i] = h;
+		if(++usados * 2 > tabla.length)
+		{
+			String[] viejaTabla = tabla;
+			int[] viejosHashes = hashes;
+			tabla = new String[viejaTabla.length * 2];
+			hashes = new int[tabla.length];
+			int máscara = tabla.length - 1;
+			for(int j = 0 ; j < viejaTabla.length ; j++)
+			{
+				if(viejaTabla[j] == null)
+					continue;
+				int k = viejosHashes[j] & máscara;
+				while(tabla[k] != null)
+					k = (k + 1) & máscara;
+				tabla[k] = viejaTabla[j];
+				hashes[k] = viejosHashes[j];
+			}
+		}
+	}
+
+	/** Decodifica un valor con caracteres no ASCII, entidades o espacios a normalizar, como lo haría un parser de XML. */
+	private String decodificar(int ini, int f) throws IOException
+	{
+		String s = new String(buf, ini, f - ini, UTF8);
+		StringBuilder sb = new StringBuilder(s.length());
+		for(int i = 0 ; i < s.length() ; i++)
+		{
+			char c = s.charAt(i);
+			if(c == '\t' || c == '\n' || c == '\r')
+			{
+				sb.append(' ');
+			} else if(c == '&')
+			{
+				int pyc = s.indexOf(';', i);
+				if(pyc < 0)
+					throw error("entidad sin terminar en " + s);
+				String entidad = s.substring(i + 1, pyc);
+				switch(entidad)
+				{
+					case "amp": sb.append('&'); break;
+					case "lt": sb.append('<'); break;
+					case "gt": sb.append('>'); break;
+					case "quot": sb.append('"'); break;
+					case "apos": sb.append('\''); break;
+					default:
+						try
+						{
+							if(entidad.startsWith("#x"))
+								sb.appendCodePoint(Integer.parseInt(entidad.substring(2), 16));
+							else if(entidad.startsWith("#"))
+								sb.appendCodePoint(Integer.parseInt(entidad.substring(1)));
+							else
+								throw error("entidad desconocida: " + entidad);
+						} catch(NumberFormatException e)
+						{
+							throw error("entidad inválida: " + entidad);
+						}
+				}
+				i = pyc;
+			} else
+			{
+				sb.append(c);
+			}
+		}
+		return sb.toString();
+	}
+
+	private void saltarDeclaración() throws IOException
+	{
+		if(pos + 2 < fin && buf[pos] == '!' && buf[pos + 1] == '-' && buf[pos + 2] == '-')
+		{
+			for(int i = pos + 3 ; i + 2 < fin ; i++)
+			{
+				if(buf[i] == '-' && buf[i + 1] == '-' && buf[i + 2] == '>')
+				{
+					pos = i + 3;
+					return;
+				}
+			}
+			throw error("comentario sin terminar");
+		}
+		pos = saltar(pos);
+	}
+
+	/** Devuelve la posición siguiente al próximo '&gt;'. */
+	private int saltar(int desde) throws IOException
+	{
+		int i = buscar((byte)'>', desde);
+		if(i < 0)
+			throw error("archivo cortado");
+		return i + 1;
+	}
+
+	private int buscar(byte b, int desde)
+	{
+		for(int i = desde ; i < fin ; i++)
+			if(buf[i] == b)
+				return i;
+		return -1;
+	}
+
+	private int finDeNombre(int desde)
+	{
+		int i = desde;
+		while(i < fin && buf[i] != '>' && buf[i] != '/' && !espacio(buf[i]))
+			i++;
+		return i;
+	}
+
+	private boolean igual(int ini, int f, byte[] nombre)
+	{
+		if(f - ini != nombre.length)
+			return false;
+		for(int i = 0 ; i < nombre.length ; i++)
+			if(buf[ini + i] != nombre[i])
+				return false;
+		return true;
+	}
+
+	private boolean igual(int ini, int f, String s)
+	{
+		if(f - ini != s.length())
+			return false;
+		for(int i = 0 ; i < s.length() ; i++)
+			if(buf[ini + i] != s.charAt(i))
+				return false;
+		return true;
+	}
+
+	private static boolean espacio(byte c)
+	{
+		return c == ' ' || c == '\t' || c == '\n' || c == '\r';
+	}
+
+	private IOException error(String mensaje)
+	{
+		int línea = 1;
+		for(int i = 0 ; i < pos && i < fin ; i++)
+			if(buf[i] == '\n')
+				línea++;
+		return new IOException(mensaje + " (línea " + línea + ")");
+	}
+
+	private static byte[] bytes(String s)
+	{
+		return s.getBytes(UTF8);
+	}
+}
@@ -0,0 +1,194 @@
+package ar.com.lichtmaier.antenas;
+
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/** Contadores, latencias y memoria por país, para saber cómo anda la aplicación en un teléfono real.
+ *
+ * Es barato de llamar: después de la primera vez sólo suma en arreglos. Las secciones medidas también se
+ * informan a un {@link Rastreador}, que en Android las muestra en systrace.
+ */
+public final class Métricas
+{
+	/** Recibe el comienzo y el fin de cada sección medida. Las secciones se anidan y terminan en el mismo hilo. */
+	public interface Rastreador
+	{
+		void empezar(String sección);
+		void terminar();
+	}
+
+	/** Límites de los intervalos de los histogramas, en microsegundos. */
+	private static final long[] LÍMITES = { 100, 250, 500, 1000, 2500, 5000, 10000, 25000, 50000, 100000, 250000, 500000, 1000000 };
+
+	private static final class Histograma
+	{
+		final long[] cuentas = new long[LÍMITES.length + 1];
+		long total, suma, máximo;
+
+		void registrar(long micros)
+		{
+			int i = 0;
+			while(i < LÍMITES.length && micros > LÍMITES[i])
+				i++;
+			cuentas[i]++;
+			total++;
+			suma += micros;
+			if(micros > máximo)
+				máximo = micros;
+		}
+
+		/** Devuelve el límite superior del intervalo donde cae el percentil, o el máximo si es el último. */
+		long percentil(double p)
+		{
+			long objetivo = (long)Math.ceil(total * p);
+			long acumulado = 0;
+			for(int i = 0 ; i < LÍMITES.length ; i++)
+			{
+				acumulado += cuentas[i];
+				if(acumulado >= objetivo)
+					return Math.min(LÍMITES[i], máximo);
+			}
+			return máximo;
+		}
+	}
+
+	private static volatile Rastreador rastreador = null;
+	private static final Map<String, long[]> contadores = new TreeMap<>();
+	private static final Map<String, Histograma> latencias = new TreeMap<>();
+	private static final Map<País, Long> memoriaPorPaís = new EnumMap<>(País.class);
+
+	private Métricas() { }
+
+	public static void ponerRastreador(Rastreador r)
+	{
+		rastreador = r;
+	}
+
+	/** Suma uno al contador. */
+	public static void contar(String nombre)
+	{
+		synchronized(contadores)
+		{
+			long[] c = contadores.get(nombre);
+			if(c == null)
+			{
+				c = new long[1];
+				contadores.put(nombre, c);
+			}
+			c[0]++;
+		}
+	}
+
+	/** Empieza una sección medida. Se tiene que cerrar con {@link #terminar(String, long)}, en general en un
+	 * <code>finally</code>.
+	 *
+	 * @param sección el nombre de la sección
+	 * @return el momento de inicio, para pasarle a {@link #terminar(String, long)}
+	 */
+	public static long empezar(String sección)
+	{
+		Rastreador r = rastreador;
+		if(r != null)
+			r.empezar(sección);
+		return System.nanoTime();
+	}
+
+	/** Termina una sección medida y registra cuánto tardó.
+	 *
+	 * @param sección el nombre de la sección
+	 * @param inicio lo que devolvió {@link #empezar(String)}
+	 */
+	public static void terminar(String sección, long inicio)
+	{
+		long micros = (System.nanoTime() - inicio) / 1000;
+		Rastreador r = rastreador;
+		if(r != null)
+			r.terminar();
+		registrar(sección, micros);
+	}
+
+	/** Registra la duración de algo que no se puede medir como una sección, por ejemplo porque empieza y
+	 * termina en distintos métodos.
+	 *
+	 * @param sección el nombre
+	 * @param micros cuánto tardó, en microsegundos
+	 */
+	public static void registrar(String sección, long micros)
+	{
+		synchronized(latencias)
+		{
+			Histograma h = latencias.get(sección);
+			if(h == null)
+			{
+				h = new Histograma();
+				latencias.put(sección, h);
+			}
+			h.registrar(micros);
+		}
+	}
+
+	/** Registra cuánta memoria ocupan (aproximadamente) las antenas de un país, o 0 si se descargaron. */
+	static void registrarMemoria(País país, long bytes)
+	{
+		synchronized(memoriaPorPaís)
+		{
+			if(bytes == 0)
+				memoriaPorPaís.remove(país);
+			else
+				memoriaPorPaís.put(país, bytes);
+		}
+	}
+
+	/** Devuelve un informe en texto de todo lo registrado. */
+	public static String resumen()
+	{
+		StringBuilder sb = new StringBuilder();
+		sb.append("Latencias (ms): n, media, p50, p90, p99, máx\n");
+		synchronized(latencias)
+		{
+			for(Map.Entry<String, Histograma> e : latencias.entrySet())
+			{
+				Histograma h = e.getValue();
+				sb.append(String.format(Locale.US, "  %s: %d, %.2f, %.2f, %.2f, %.2f, %.2f\n", e.getKey(), h.total,
+						h.suma / 1000.0 / h.total, h.percentil(.5) / 1000.0, h.percentil(.9) / 1000.0,
+						h.percentil(.99) / 1000.0, h.máximo / 1000.0));
+			}
+		}
+		sb.append("\nContadores\n");
+		synchronized(contadores)
+		{
+			for(Map.Entry<String, long[]> e : contadores.entrySet())
+				sb.append("  ").append(e.getKey()).append(": ").append(e.getValue()[0]).append('\n');
+		}
+		sb.append("\nMemoria por país (aprox.)\n");
+		long total = 0;
+		synchronized(memoriaPorPaís)
+		{
+			for(Map.Entry<País, Long> e : memoriaPorPaís.entrySet())
+			{
+				sb.append(String.format(Locale.US, "  %s: %.1f KB\n", e.getKey(), e.getValue() / 1024.0));
+				total += e.getValue();
+			}
+		}
+		sb.append(String.format(Locale.US, "  total: %.1f KB\n", total / 1024.0));
+		Runtime rt = Runtime.getRuntime();
+		sb.append(String.format(Locale.US, "\nHeap: %.1f de %.1f MB\n", (rt.totalMemory() - rt.freeMemory()) / 1048576.0,
+				rt.maxMemory() / 1048576.0));
+		return sb.toString();
+	}
+
+	/** Olvida contadores y latencias, pero no la memoria de los países cargados. */
+	public static void reiniciar()
+	{
+		synchronized(contadores)
+		{
+			contadores.clear();
+		}
+		synchronized(latencias)
+		{
+			latencias.clear();
+		}
+	}
+}
@@ -0,0 +1,165 @@
+package ar.com.lichtmaier.antenas;
+
+import java.util.List;
+
+import org.gavaghan.geodesy.Ellipsoid;
+import org.gavaghan.geodesy.GeodeticCalculator;
+import org.gavaghan.geodesy.GlobalCoordinates;
+
+/** Decide cada cuánto y con qué precisión pedir la ubicación, y si una ubicación nueva cambia algo de lo
+ * que se ve.
+ *
+ * Al moverse una distancia d la distancia a cada antena cambia a lo sumo d, y el rumbo a una antena que
+ * está a D cambia a lo sumo asin(d / D). Mientras d sea chica comparada con la antena más cercana y con
+ * las diferencias entre las distancias, ni el orden de la lista ni las flechas cambian de forma visible.
+ */
+public class PolíticaUbicación
+{
+	/** Lo más que puede girar una flecha sin volver a calcular las antenas, en radianes. */
+	static final double ÁNGULO_MÁXIMO = Math.toRadians(2);
+
+	/** Antenas a menos de esta distancia entre sí, en metros, están en el mismo predio y da igual en qué orden se muestren. */
+	private static final double MISMO_LUGAR = 100;
+
+	/** Por debajo de esta velocidad, en m/s, el usuario está quieto. */
+	private static final float VELOCIDAD_QUIETO = .5f;
+
+	/** Cuánto tiempo tiene que estar quieto para dejar de usar el GPS, en milisegundos. */
+	private static final long TIEMPO_QUIETO = 60000;
+
+	/** Cómo pedir la ubicación, de más a menos precisa. */
+	public enum Modo
+	{
+		/** GPS, con antenas cerca y el usuario moviéndose. */
+		PRECISO(10000, 2000, 10),
+		/** Wi-Fi y celdas alcanzan: las antenas están a algunos kilómetros o el usuario está quieto. */
+		NORMAL(30000, 5000, 50),
+		/** Las antenas están tan lejos que un error de un kilómetro casi no mueve las flechas. */
+		AHORRO(120000, 10000, 1000);
+
+		/** En milisegundos. */
+		public final long intervalo, intervaloMínimo;
+		/** En metros. */
+		public final float desplazamiento;
+
+		Modo(long intervalo, long intervaloMínimo, float desplazamiento)
+		{
+			this.intervalo = intervalo;
+			this.intervaloMínimo = intervaloMínimo;
+			this.desplazamiento = desplazamiento;
+		}
+	}
+
+	/** Desde dónde se calcularon las antenas que se muestran, o null si no se calcularon. */
+	private GlobalCoordinates desde;
+	private double[] distancias = new double[0];
+	/** Si cada antena está en el mismo lugar que la anterior. */
+	private boolean[] juntoALaAnterior = new boolean[0];
+	private double distanciaSiguiente, límite, límiteMenos;
+	private boolean mostrarMenos;
+
+	private Modo modo = Modo.PRECISO;
+	private long quietoDesde = -1;
+
+	/** Recuerda las antenas que se muestran.
+	 *
+	 * @param coords desde dónde se calcularon
+	 * @param antenas las antenas, ordenadas por distancia
+	 * @param distanciaSiguiente la distancia a la antena más cercana que quedó afuera ({@link Antena#dameDistanciaSiguiente()})
+	 * @param maxDist y
+	 * @param mostrarMenos los parámetros con los que se buscaron
+	 */
+	public void calculadas(GlobalCoordinates coords, List<Antena> antenas, double distanciaSiguiente, int maxDist, boolean mostrarMenos)
+	{
+		desde = coords;
+		distancias = new double[antenas.size()];
+		juntoALaAnterior = new boolean[antenas.size()];
+		for(int i = 0 ; i < distancias.length ; i++)
+		{
+			distancias[i] = antenas.get(i).dist;
+			juntoALaAnterior[i] = i > 0 && distancia(antenas.get(i - 1).dameCoordenadas(), antenas.get(i).dameCoordenadas()) < MISMO_LUGAR;
+		}
+		this.distanciaSiguiente = distanciaSiguiente;
+		this.mostrarMenos = mostrarMenos;
+		límite = maxDist;
+		límiteMenos = (maxDist * 2) / 3;
+	}
+
+	/** Olvida las antenas, por ejemplo si cambiaron los países cargados. */
+	public void olvidar()
+	{
+		desde = null;
+	}
+
+	/** Devuelve si moverse hasta una ubicación puede cambiar qué antenas se muestran, su orden o girar
+	 * alguna flecha más de {@link #ÁNGULO_MÁXIMO}.
+	 */
+	public boolean cambiaAlgo(GlobalCoordinates coords)
+	{
+		if(desde == null)
+			return true;
+		double d = distancia(desde, coords);
+		int n = distancias.length;
+		// Una que estaba afuera puede entrar.
+		if(distanciaSiguiente - d < (mostrarMenos && n >= 5 ? límiteMenos : límite))
+			return true;
+		if(n == 0)
+			return false;
+		// La flecha que más gira es la de la antena más cercana.
+		if(d >= distancias[0] || Math.asin(d / distancias[0]) > ÁNGULO_MÁXIMO)
+			return true;
+		for(int i = 0 ; i < n ; i++)
+		{
+			if(i > 0 && !juntoALaAnterior[i] && distancias[i] - distancias[i - 1] <= 2 * d)
+				return true;
+			// Una que estaba adentro puede salir.
+			if(distancias[i] + d >= (mostrarMenos && i > 4 ? límiteMenos : límite))
+				return true;
+		}
+		return false;
+	}
+
+	/** Elige cómo pedir la ubicación según la antena más cercana y la velocidad del usuario.
+	 *
+	 * @param velocidad en m/s, o NaN si no se sabe
+	 * @param ahora la hora actual, en milisegundos
+	 * @return el modo, que hay que aplicar si cambió desde la última vez
+	 */
+	public Modo elegirModo(float velocidad, long ahora)
+	{
+		double cercana = distancias.length > 0 ? distancias[0] : distanciaSiguiente;
+		// Lo que hay que moverse para que la flecha de la antena más cercana gire ÁNGULO_MÁXIMO.
+		double umbral = desde == null ? 0 : cercana * Math.sin(ÁNGULO_MÁXIMO);
+		Modo m = umbral >= Modo.AHORRO.desplazamiento ? Modo.AHORRO
+				: umbral >= Modo.NORMAL.desplazamiento ? Modo.NORMAL
+				: Modo.PRECISO;
+		if(!Float.isNaN(velocidad))
+		{
+			// Entre una ubicación y la siguiente no se puede recorrer más que el umbral.
+			while(m != Modo.PRECISO && velocidad * m.intervalo / 1000.0 > umbral)
+				m = Modo.values()[m.ordinal() - 1];
+			if(velocidad < VELOCIDAD_QUIETO)
+			{
+				if(quietoDesde < 0)
+					quietoDesde = ahora;
+				if(ahora - quietoDesde >= TIEMPO_QUIETO && m == Modo.PRECISO)
+					m = Modo.NORMAL;
+			} else
+			{
+				quietoDesde = -1;
+			}
+		}
+		modo = m;
+		return m;
+	}
+
+	public Modo dameModo()
+	{
+		return modo;
+	}
+
+	private static double distancia(GlobalCoordinates a, GlobalCoordinates b)
+	{
+		return GeodeticCalculator.calculateGeodeticCurve(Ellipsoid.WGS84, a, b).getEllipsoidalDistance();
+	}
+}
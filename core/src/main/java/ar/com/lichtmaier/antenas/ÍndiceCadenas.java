@@ -0,0 +1,102 @@
+package ar.com.lichtmaier.antenas;
+
+import java.util.*;
+
+/** Las antenas de un país agrupadas por cadena y por número de canal, como conjuntos de bits sobre el
+ * número de orden de cada antena. Se arma una vez al cargar el país, así que filtrar es combinar bits en
+ * lugar de comparar los strings de cada canal.
+ */
+final class ÍndiceCadenas
+{
+	/** Por nombre normalizado ({@link Canal#dameCadena()}), o el de los datos si no es una cadena conocida. */
+	private final Map<String, BitSet> porCadena = new HashMap<>();
+	/** Por número de canal físico. */
+	private final NavigableMap<Integer, BitSet> porCanal = new TreeMap<>();
+	private final int cantidad;
+
+	ÍndiceCadenas(List<Antena> antenas)
+	{
+		cantidad = antenas.size();
+		for(Antena antena : antenas)
+		{
+			if(antena.canales == null)
+				continue;
+			for(Canal canal : antena.canales)
+			{
+				String cadena = dameCadena(canal);
+				if(cadena != null)
+					bits(porCadena, cadena).set(antena.index);
+				int número = dameNúmero(canal);
+				if(número >= 0)
+					bits(porCanal, número).set(antena.index);
+			}
+		}
+	}
+
+	private static <K> BitSet bits(Map<K, BitSet> mapa, K clave)
+	{
+		BitSet b = mapa.get(clave);
+		if(b == null)
+		{
+			b = new BitSet();
+			mapa.put(clave, b);
+		}
+		return b;
+	}
+
+	/** La cadena con la que se indexa un canal, o null si no tiene. */
+	static String dameCadena(Canal canal)
+	{
+		String cadena = canal.dameCadena();
+		return cadena != null ? cadena : canal.cadena;
+	}
+
+	/** El número de canal físico, sin lo que venga después de los dígitos ("9A", "29.1"), o -1 si no tiene. */
+	static int dameNúmero(Canal canal)
+	{
+		String n = canal.numero;
+		if(n == null)
+			return -1;
+		int v = 0, i = 0;
+		while(i < n.length() && n.charAt(i) >= '0' && n.charAt(i) <= '9' && i < 6)
+			v = v * 10 + (n.charAt(i++) - '0');
+		return i == 0 ? -1 : v;
+	}
+
+	/** Devuelve las antenas que tienen algún canal de alguna de las cadenas, o null si son todas. */
+	private BitSet conCadenas(Set<String> cadenas)
+	{
+		if(cadenas == null)
+			return null;
+		BitSet res = new BitSet(cantidad);
+		for(String cadena : cadenas)
+		{
+			BitSet b = porCadena.get(cadena);
+			if(b != null)
+				res.or(b);
+		}
+		return res;
+	}
+
+	/** Devuelve las antenas que tienen algún canal en un rango, o null si son todas. */
+	private BitSet conCanales(int mínimo, int máximo)
+	{
+		if(mínimo <= 0 && máximo == Integer.MAX_VALUE)
+			return null;
+		BitSet res = new BitSet(cantidad);
+		for(BitSet b : porCanal.subMap(mínimo, true, máximo, true).values())
+			res.or(b);
+		return res;
+	}
+
+	/** Devuelve las antenas que pasan un filtro, o null si pasan todas. */
+	BitSet filtrar(FiltroAntenas filtro)
+	{
+		BitSet cadenas = conCadenas(filtro.cadenas), canales = conCanales(filtro.canalMínimo, filtro.canalMáximo);
+		if(cadenas == null)
+			return canales;
+		if(canales != null)
+			cadenas.and(canales);
+		return cadenas;
+	}
+}
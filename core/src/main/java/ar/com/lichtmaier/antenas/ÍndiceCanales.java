@@ -0,0 +1,398 @@
+package ar.com.lichtmaier.antenas;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.text.Normalizer;
+import java.util.*;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/** Índice invertido de los canales de todos los países, para buscar por nombre, cadena o número sin
+ * cargar las antenas.
+ *
+ * Se arma al compilar la aplicación ({@link #main(String[])}) y se lee de un archivo. Guarda, para cada
+ * palabra, las antenas donde aparece, y las coordenadas de todas las antenas, así que los resultados se
+ * ordenan por distancia sin leer ningún país. Las antenas se identifican por país y número de orden, como
+ * en {@link Antena#dameAntena}.
+ */
+public final class ÍndiceCanales
+{
+	/** "BUS1" */
+	private static final int MAGIA = 0x42555331;
+	private static final int FORMATO = 1;
+
+	private static final double RADIO_TIERRA = 6371008.8;
+
+	/** Palabras, números enteros o con punto ("7.1"). */
+	private static final Pattern PALABRA = Pattern.compile("[\\p{L}\\p{N}]+(?:\\.\\p{N}+)*");
+	private static final Pattern DIACRÍTICOS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+
+	/** Palabras que se ignoran en las búsquedas: casi todos los nombres las tienen. */
+	private static final Set<String> IGNORADAS = new HashSet<>(Arrays.asList(
+			"canal", "canales", "canais", "channel", "channels", "ch", "chaine", "chaines"));
+
+	/** Las palabras, ordenadas, y para cada una las antenas donde aparece (ver {@link #clave}), ordenadas. */
+	private final String[] palabras;
+	private final int[][] antenas;
+	/** Latitud y longitud de cada antena, por país. */
+	private final float[][] coordenadas;
+
+	/** Una antena encontrada. */
+	public static final class Resultado
+	{
+		public final País país;
+		public final int index;
+		/** Desde donde se buscó, en metros. Aproximada: se calcula sobre una esfera. */
+		public final double distancia;
+
+		Resultado(País país, int index, double distancia)
+		{
+			this.país = país;
+			this.index = index;
+			this.distancia = distancia;
+		}
+	}
+
+	private ÍndiceCanales(String[] palabras, int[][] antenas, float[][] coordenadas)
+	{
+		this.palabras = palabras;
+		this.antenas = antenas;
+		this.coordenadas = coordenadas;
+	}
+
+	/** Busca las antenas que tienen todas las palabras de la consulta en alguno de sus canales, en su
+	 * cadena o en su descripción. Las palabras de la consulta pueden ser el principio de una palabra, salvo
+	 * los números, que tienen que ser exactos.
+	 *
+	 * @param consulta lo que escribió el usuario
+	 * @param lat y
+	 * @param lon desde dónde ordenar los resultados
+	 * @param máximo cuántos resultados devolver como mucho
+	 * @return las antenas más cercanas primero
+	 */
+	public List<Resultado> buscar(String consulta, double lat, double lon, int máximo)
+	{
+		int[] encontradas = encontrar(consulta);
+		if(encontradas.length == 0)
+			return Collections.emptyList();
+
+		double φ = Math.toRadians(lat), λ = Math.toRadians(lon);
+		final double[] distancias = new double[encontradas.length];
+		for(int i = 0 ; i < encontradas.length ; i++)
+		{
+			int clave = encontradas[i];
+			float[] c = coordenadas[clave >>> 24];
+			int index = clave & 0xffffff;
+			distancias[i] = distancia(φ, λ, Math.toRadians(c[index * 2]), Math.toRadians(c[index * 2 + 1]));
+		}
+		// Sólo se ordenan las que se devuelven: se guardan las "máximo" más cercanas con la más lejana arriba.
+		PriorityQueue<Integer> cercanas = new PriorityQueue<>(Math.max(1, Math.min(máximo, encontradas.length)), new Comparator<Integer>()
+		{
+			@Override
+			public int compare(Integer a, Integer b)
+			{
+				return Double.compare(distancias[b], distancias[a]);
+			}
+		});
+		for(int i = 0 ; i < encontradas.length ; i++)
+		{
+			if(cercanas.size() < máximo)
+				cercanas.add(i);
+			else if(máximo > 0 && distancias[i] < distancias[cercanas.peek()])
+			{
+				cercanas.poll();
+				cercanas.add(i);
+			}
+		}
+		Resultado[] res = new Resultado[cercanas.size()];
+		for(int i = res.length - 1 ; i >= 0 ; i--)
+		{
+			int j = cercanas.poll();
+			int clave = encontradas[j];
+			res[i] = new Resultado(País.values()[clave >>> 24], clave & 0xffffff, distancias[j]);
+		}
+		return Arrays.asList(res);
+	}
+
+	/** Busca como {@link #buscar(String, double, double, int)} cuando no se sabe dónde está el usuario.
+	 *
+	 * @return las antenas ordenadas por país y número de orden, siempre en el mismo orden; la distancia es NaN
+	 */
+	public List<Resultado> buscar(String consulta, int máximo)
+	{
+		int[] encontradas = encontrar(consulta);
+		Resultado[] res = new Resultado[Math.max(0, Math.min(máximo, encontradas.length))];
+		for(int i = 0 ; i < res.length ; i++)
+			res[i] = new Resultado(País.values()[encontradas[i] >>> 24], encontradas[i] & 0xffffff, Double.NaN);
+		return Arrays.asList(res);
+	}
+
+	/** Las claves de las antenas que tienen todas las palabras de la consulta, ordenadas. */
+	private int[] encontrar(String consulta)
+	{
+		List<String> buscadas = new ArrayList<>();
+		for(String p : palabras(consulta))
+			if(!IGNORADAS.contains(p))
+				buscadas.add(p);
+		// Si sólo se escribió "canal", se busca eso.
+		if(buscadas.isEmpty())
+			buscadas.addAll(palabras(consulta));
+		if(buscadas.isEmpty())
+			return new int[0];
+		int[] encontradas = null;
+		for(String p : buscadas)
+		{
+			int[] a = antenasCon(p, !esNúmero(p));
+			encontradas = encontradas == null ? a : intersección(encontradas, a);
+			if(encontradas.length == 0)
+				break;
+		}
+		return encontradas;
+	}
+
+	/** Devuelve las antenas con una palabra, o con alguna que empiece con ella, sin repetir y ordenadas. */
+	private int[] antenasCon(String palabra, boolean prefijo)
+	{
+		int i = Arrays.binarySearch(palabras, palabra);
+		if(!prefijo)
+			return i >= 0 ? antenas[i] : new int[0];
+		if(i < 0)
+			i = -i - 1;
+		int j = i;
+		int total = 0;
+		while(j < palabras.length && palabras[j].startsWith(palabra))
+			total += antenas[j++].length;
+		if(j == i + 1)
+			return antenas[i];
+		int[] res = new int[total];
+		int n = 0;
+		for(int k = i ; k < j ; k++)
+		{
+			System.arraycopy(antenas[k], 0, res, n, antenas[k].length);
+			n += antenas[k].length;
+		}
+		Arrays.sort(res);
+		return sinRepetir(res, n);
+	}
+
+	private static int[] intersección(int[] a, int[] b)
+	{
+		int[] res = new int[Math.min(a.length, b.length)];
+		int i = 0, j = 0, n = 0;
+		while(i < a.length && j < b.length)
+		{
+			if(a[i] < b[j])
+				i++;
+			else if(a[i] > b[j])
+				j++;
+			else
+			{
+				res[n++] = a[i];
+				i++;
+				j++;
+			}
+		}
+		return Arrays.copyOf(res, n);
+	}
+
+	private static int[] sinRepetir(int[] a, int largo)
+	{
+		int n = 0;
+		for(int i = 0 ; i < largo ; i++)
+			if(n == 0 || a[n - 1] != a[i])
+				a[n++] = a[i];
+		return Arrays.copyOf(a, n);
+	}
+
+	private static boolean esNúmero(String palabra)
+	{
+		for(int i = 0 ; i < palabra.length() ; i++)
+		{
+			char c = palabra.charAt(i);
+			if((c < '0' || c > '9') && c != '.')
+				return false;
+		}
+		return true;
+	}
+
+	/** Distancia sobre la esfera, con la fórmula del haversine. Alcanza para ordenar. */
+	private static double distancia(double φ1, double λ1, double φ2, double λ2)
+	{
+		double a = Math.sin((φ2 - φ1) / 2), b = Math.sin((λ2 - λ1) / 2);
+		double h = a * a + Math.cos(φ1) * Math.cos(φ2) * b * b;
+		return 2 * RADIO_TIERRA * Math.asin(Math.min(1, Math.sqrt(h)));
+	}
+
+	/** Separa un texto en palabras en minúscula y sin acentos. */
+	static List<String> palabras(String texto)
+	{
+		List<String> res = new ArrayList<>();
+		if(texto == null)
+			return res;
+		String normalizado = DIACRÍTICOS.matcher(Normalizer.normalize(texto, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+		Matcher m = PALABRA.matcher(normalizado);
+		while(m.find())
+			res.add(m.group());
+		return res;
+	}
+
+	private static int clave(País país, int index)
+	{
+		return (país.ordinal() << 24) | index;
+	}
+
+	/** Lee un índice escrito por {@link #escribir}. */
+	public static ÍndiceCanales leer(InputStream is) throws IOException
+	{
+		DataInputStream in = new DataInputStream(new BufferedInputStream(is));
+		if(in.readInt() != MAGIA || in.readInt() != FORMATO)
+			throw new IOException("no es un índice de canales");
+		País[] países = País.values();
+		int nPaíses = in.readByte();
+		if(nPaíses != países.length)
+			throw new IOException("el índice es de otros países");
+		float[][] coordenadas = new float[países.length][];
+		for(int p = 0 ; p < países.length ; p++)
+		{
+			float[] c = coordenadas[p] = new float[in.readInt() * 2];
+			for(int i = 0 ; i < c.length ; i++)
+				c[i] = in.readFloat();
+		}
+		String[] palabras = new String[in.readInt()];
+		int[][] antenas = new int[palabras.length][];
+		for(int i = 0 ; i < palabras.length ; i++)
+		{
+			palabras[i] = in.readUTF();
+			int[] a = antenas[i] = new int[in.readInt()];
+			int anterior = 0;
+			// Van como diferencias con la anterior, que son chicas.
+			for(int j = 0 ; j < a.length ; j++)
+				a[j] = anterior += leerVariable(in);
+		}
+		return new ÍndiceCanales(palabras, antenas, coordenadas);
+	}
+
+	/** Arma el índice con las antenas de todos los países y lo escribe. */
+	static void escribir(FuenteDeDatos fuente, OutputStream os) throws IOException
+	{
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(os));
+		out.writeInt(MAGIA);
+		out.writeInt(FORMATO);
+		out.writeByte(País.values().length);
+		SortedMap<String, SortedSet<Integer>> índice = new TreeMap<>();
+		for(País país : País.values())
+		{
+			List<Antena> lista = new ArrayList<>();
+			InputStream in = fuente.abrir(país);
+			try
+			{
+				LectorAntenas.leer(in, país, lista);
+			} finally
+			{
+				in.close();
+			}
+			out.writeInt(lista.size());
+			for(Antena antena : lista)
+			{
+				out.writeFloat((float)antena.dameCoordenadas().getLatitude());
+				out.writeFloat((float)antena.dameCoordenadas().getLongitude());
+				int clave = clave(país, antena.index);
+				agregar(índice, antena.descripción, clave);
+				if(antena.canales != null)
+					for(Canal canal : antena.canales)
+					{
+						agregar(índice, canal.nombre, clave);
+						agregar(índice, canal.cadena, clave);
+						agregar(índice, canal.dameCadena(), clave);
+						agregar(índice, canal.numero, clave);
+						agregar(índice, canal.numeroVirtual, clave);
+						// "7.1" también se encuentra como "7".
+						if(canal.numeroVirtual != null && canal.numeroVirtual.indexOf('.') > 0)
+							agregar(índice, canal.numeroVirtual.substring(0, canal.numeroVirtual.indexOf('.')), clave);
+					}
+			}
+		}
+		out.writeInt(índice.size());
+		for(Map.Entry<String, SortedSet<Integer>> e : índice.entrySet())
+		{
+			out.writeUTF(e.getKey());
+			out.writeInt(e.getValue().size());
+			int anterior = 0;
+			for(int clave : e.getValue())
+			{
+				escribirVariable(out, clave - anterior);
+				anterior = clave;
+			}
+		}
+		out.flush();
+	}
+
+	private static void agregar(SortedMap<String, SortedSet<Integer>> índice, String texto, int clave)
+	{
+		for(String palabra : palabras(texto))
+		{
+			SortedSet<Integer> s = índice.get(palabra);
+			if(s == null)
+			{
+				s = new TreeSet<>();
+				índice.put(palabra, s);
+			}
+			s.add(clave);
+		}
+	}
+
+	private static void escribirVariable(DataOutputStream out, int v) throws IOException
+	{
+		while((v & ~0x7f) != 0)
+		{
+			out.writeByte((v & 0x7f) | 0x80);
+			v >>>= 7;
+		}
+		out.writeByte(v);
+	}
+
+	private static int leerVariable(DataInputStream in) throws IOException
+	{
+		int v = 0;
+		for(int corrimiento = 0 ; corrimiento < 32 ; corrimiento += 7)
+		{
+			int b = in.readUnsignedByte();
+			v |= (b & 0x7f) << corrimiento;
+			if((b & 0x80) == 0)
+				return v;
+		}
+		throw new IOException("número mal formado");
+	}
+
+	/** Arma el índice al compilar la aplicación.
+	 *
+	 * @param args el directorio con los archivos de antenas y el archivo a escribir
+	 */
+	public static void main(String[] args) throws IOException
+	{
+		if(args.length != 2)
+		{
+			System.err.println("uso: ÍndiceCanales <directorio de antenas> <archivo del índice>");
+			System.exit(2);
+		}
+		File archivo = new File(args[1]);
+		File dir = archivo.getParentFile();
+		if(dir != null && !dir.isDirectory() && !dir.mkdirs())
+			throw new IOException("no se pudo crear " + dir);
+		OutputStream out = new FileOutputStream(archivo);
+		try
+		{
+			escribir(new FuenteArchivos(new File(args[0])), out);
+		} finally
+		{
+			out.close();
+		}
+	}
+}
@@ -0,0 +1,95 @@
+package ar.com.lichtmaier.antenas;
+
+import org.gavaghan.geodesy.GlobalCoordinates;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** {@link Cercanas} tiene que devolver las antenas en el mismo orden que ordenar todas las antenas cargadas
+ * por distancia, y {@link Antena#dameAntenasCerca} tiene que dar lo mismo que filtrar esa lista a mano.
+ * Las ubicaciones van una después de otra y lejos entre sí, para que no se reuse lo calculado para la
+ * anterior.
+ */
+public class CercanasTest
+{
+	private static final double[][] UBICACIONES = {
+			{ 40.7128, -74.0060 }, // Nueva York
+			{ 34.0522, -118.2437 }, // Los Ángeles
+			{ 25.7617, -80.1918 }, // Miami
+			{ 61.2181, -149.9003 }, // Anchorage
+			{ -33.8688, 151.2093 }, // Sidney
+			{ -36.8485, 174.7633 }, // Auckland
+			{ -34.9011, -56.1645 }, // Montevideo
+			{ -34.6037, -58.3816 }, // Buenos Aires
+			{ 51.5074, -0.1278 }, // Londres
+	};
+
+	@Test
+	public void igualQueOrdenarTodas()
+	{
+		FuenteDeDatos fuente = Datos.fuente();
+		for(double[] u : UBICACIONES)
+		{
+			GlobalCoordinates coords = new GlobalCoordinates(u[0], u[1]);
+			String lugar = u[0] + "," + u[1];
+
+			// Carga los países de la ubicación; los de las anteriores siguen cargados.
+			List<Antena> primeras = Antena.cercanas(fuente, coords, null).primeras(300);
+			List<Antena> todas = new ArrayList<>();
+			for(País país : Antena.dameCargados())
+				todas.addAll(Antena.dameAntenas(fuente, país));
+			final Map<Antena, Double> distancias = new HashMap<>();
+			for(Antena antena : todas)
+				distancias.put(antena, antena.distanceTo(coords));
+			Collections.sort(todas, new Comparator<Antena>()
+			{
+				@Override
+				public int compare(Antena a, Antena b)
+				{
+					return Double.compare(distancias.get(a), distancias.get(b));
+				}
+			});
+			List<Antena> esperadas = todas.subList(0, Math.min(300, todas.size()));
+			assertTrue(lugar + ": las 300 más cercanas no coinciden con las de ordenar todas", mismasDistancias(esperadas, primeras, distancias));
+
+			for(int maxDist : new int[] { 20000, 60000, 300000 })
+				for(boolean menos : new boolean[] { false, true })
+				{
+					List<Antena> obtenidas = new ArrayList<>(Antena.dameAntenasCerca(fuente, coords, maxDist, menos));
+					List<Antena> aMano = new ArrayList<>();
+					double siguiente = Double.POSITIVE_INFINITY;
+					for(Antena antena : todas)
+					{
+						double d = distancias.get(antena);
+						if(d < maxDist && (!menos || aMano.size() < 5 || d <= (maxDist * 2) / 3))
+							aMano.add(antena);
+						else
+						{
+							siguiente = d;
+							break;
+						}
+					}
+					String caso = String.format("%s, %d m, menos=%s", lugar, maxDist, menos);
+					assertTrue(caso + ": se esperaban " + aMano.size() + " antenas, se obtuvieron " + obtenidas.size(),
+							mismasDistancias(aMano, obtenidas, distancias));
+					assertEquals(caso + ": distancia a la siguiente", siguiente, Antena.dameDistanciaSiguiente(), 0);
+				}
+		}
+	}
+
+	/** Las listas tienen las mismas distancias en el mismo orden y las mismas antenas; las que están a la
+	 * misma distancia pueden venir en cualquier orden.
+	 */
+	private static boolean mismasDistancias(List<Antena> esperadas, List<Antena> obtenidas, Map<Antena, Double> distancias)
+	{
+		if(esperadas.size() != obtenidas.size())
+			return false;
+		for(int i = 0 ; i < esperadas.size() ; i++)
+			if(!distancias.get(esperadas.get(i)).equals(distancias.get(obtenidas.get(i))))
+				return false;
+		return new HashSet<>(esperadas).equals(new HashSet<>(obtenidas));
+	}
+}
@@ -0,0 +1,70 @@
+package ar.com.lichtmaier.antenas;
+
+import org.gavaghan.geodesy.GlobalCoordinates;
+import org.junit.Test;
+
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+
+/** Filtrar con los bits de {@link ÍndiceCadenas} tiene que dar lo mismo que mirar los canales de cada
+ * antena con {@link FiltroAntenas#acepta}, en las antenas cercanas y en rectángulos.
+ */
+public class FiltroAntenasTest
+{
+	private static final FiltroAntenas[] FILTROS = {
+			new FiltroAntenas(Collections.singleton("PBS"), 0, Integer.MAX_VALUE),
+			new FiltroAntenas(new HashSet<>(Arrays.asList("NBC", "CW", "MYTV")), 0, Integer.MAX_VALUE),
+			new FiltroAntenas(Collections.singleton("UNIVISION"), 14, 51),
+			new FiltroAntenas(null, 2, 6),
+			new FiltroAntenas(null, 7, 13),
+			new FiltroAntenas(null, 28, 40),
+			new FiltroAntenas(Collections.singleton("NO EXISTE"), 0, Integer.MAX_VALUE),
+	};
+
+	private static final String[] LUGARES = { "nueva_york", "sidney", "montevideo" };
+
+	private final FuenteDeDatos fuente = Datos.fuente();
+
+	@Test
+	public void cercanas()
+	{
+		for(String lugar : LUGARES)
+		{
+			double[] ll = Datos.lugar(lugar);
+			GlobalCoordinates coords = new GlobalCoordinates(ll[0], ll[1]);
+			for(FiltroAntenas filtro : FILTROS)
+			{
+				List<Antena> todas = new ArrayList<>(Antena.dameAntenasCerca(fuente, coords, 300000, false));
+				List<Antena> esperadas = new ArrayList<>();
+				for(Antena antena : todas)
+					if(filtro.acepta(antena))
+						esperadas.add(antena);
+				assertEquals(lugar + ", " + filtro, esperadas, Antena.dameAntenasCerca(fuente, coords, 300000, false, filtro));
+			}
+		}
+	}
+
+	@Test
+	public void enRectángulo()
+	{
+		for(String lugar : LUGARES)
+		{
+			double[] ll = Datos.lugar(lugar);
+			// Para que estén cargados los países del rectángulo.
+			Antena.dameAntenasCerca(fuente, new GlobalCoordinates(ll[0], ll[1]), 300000, false);
+			for(FiltroAntenas filtro : FILTROS)
+			{
+				List<Antena> enRectángulo = new ArrayList<>(), conFiltro = new ArrayList<>();
+				Antena.antenasEnRectángulo(ll[0] + 3, ll[1] - 4, ll[0] - 3, ll[1] + 4, enRectángulo);
+				Antena.antenasEnRectángulo(ll[0] + 3, ll[1] - 4, ll[0] - 3, ll[1] + 4, filtro, conFiltro);
+				Set<Antena> esperadas = new HashSet<>();
+				for(Antena antena : enRectángulo)
+					if(filtro.acepta(antena))
+						esperadas.add(antena);
+				assertEquals(lugar + ", " + filtro, esperadas, new HashSet<>(conFiltro));
+				assertEquals(lugar + ", " + filtro + ": antenas repetidas", esperadas.size(), conFiltro.size());
+			}
+		}
+	}
+}
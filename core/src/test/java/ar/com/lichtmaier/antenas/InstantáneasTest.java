@@ -0,0 +1,219 @@
+package ar.com.lichtmaier.antenas;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/** Las antenas leídas de una {@link Instantáneas}, completas o de a una, tienen que ser idénticas a las
+ * leídas del XML, y una instantánea dañada o de otra versión se tiene que descartar.
+ */
+public class InstantáneasTest
+{
+	private final FuenteDeDatos fuente = Datos.fuente();
+	private final FuenteDeDatos sinXML = new FuenteDeDatos()
+	{
+		@Override
+		public InputStream abrir(País país) throws IOException
+		{
+			throw new IOException("no se tendría que leer el XML de " + país);
+		}
+	};
+	private File dir;
+	private Instantáneas instantáneas;
+
+	@Before
+	public void preparar()
+	{
+		dir = new File(System.getProperty("java.io.tmpdir"), "antenas-instantaneas-" + System.nanoTime());
+		instantáneas = new Instantáneas(dir, "prueba");
+		Antena.usarInstantáneas(instantáneas);
+		for(País país : País.values())
+			Antena.descargar(país);
+	}
+
+	@After
+	public void limpiar()
+	{
+		Antena.esperarInstantáneas();
+		Antena.usarInstantáneas(null);
+		for(País país : País.values())
+			Antena.descargar(país);
+		File[] archivos = dir.listFiles();
+		if(archivos != null)
+			for(File f : archivos)
+				//noinspection ResultOfMethodCallIgnored
+				f.delete();
+		//noinspection ResultOfMethodCallIgnored
+		dir.delete();
+	}
+
+	/** Carga el país del XML y espera a que se escriba su instantánea. */
+	private long cargarDelXML(País país)
+	{
+		Antena.descargar(país);
+		long huella = Instantáneas.huella(Antena.dameAntenas(fuente, país));
+		Antena.esperarInstantáneas();
+		assertTrue(país + ": no se escribió la instantánea", instantáneas.archivo(país).exists());
+		return huella;
+	}
+
+	@Test
+	public void igualesAlXML()
+	{
+		for(País país : País.values())
+		{
+			long delXML = cargarDelXML(país);
+			int cantidad = Antena.dameAntenas(fuente, país).size();
+
+			// Sin XML sólo se puede leer de la instantánea.
+			Antena.descargar(país);
+			List<Antena> leídas = Antena.dameAntenas(sinXML, país);
+			assertEquals(país + ": la instantánea no coincide con el XML", delXML, Instantáneas.huella(leídas));
+			assertEquals(país + ": cantidad de antenas", cantidad, leídas.size());
+			Antena.descargar(país);
+		}
+	}
+
+	/** Cada antena sola, por su número de orden, tiene que ser la misma que en la carga completa. */
+	@Test
+	public void deAUna() throws IOException
+	{
+		for(País país : País.values())
+		{
+			cargarDelXML(país);
+			List<Antena> todas = Antena.dameAntenas(sinXML, país);
+			Antena.descargar(país);
+			for(Antena antena : todas)
+			{
+				Antena sola = instantáneas.leerUna(país, antena.index);
+				assertNotNull(país + ": no se leyó la antena " + antena.index, sola);
+				assertEquals(país + ": la antena " + antena.index + " leída sola no coincide", antena, sola);
+				assertEquals(país + ": la antena " + antena.index + " leída sola no coincide",
+						Instantáneas.huella(Collections.singletonList(antena)), Instantáneas.huella(Collections.singletonList(sola)));
+			}
+			if(!todas.isEmpty())
+				assertEquals(país + ": dameAntena no devolvió la antena de la instantánea",
+						todas.get(todas.size() - 1), Antena.dameAntena(sinXML, país, todas.size() - 1));
+			// dameAntena empezó a cargar el país; se espera para que no quede a medias.
+			Antena.dameAntenas(sinXML, país);
+			Antena.descargar(país);
+		}
+	}
+
+	/** Las antenas de los resultados de una búsqueda se leen sin cargar sus países: sin instantánea del XML,
+	 * que deja la instantánea escrita, y después de la instantánea.
+	 */
+	@Test
+	public void sueltas() throws IOException
+	{
+		for(País país : País.values())
+		{
+			List<Antena> todas = new ArrayList<>();
+			try(InputStream in = fuente.abrir(país))
+			{
+				LectorAntenas.leer(in, país, todas);
+			}
+			int n = todas.size();
+			if(n == 0)
+				continue;
+			List<ÍndiceCanales.Resultado> resultados = Arrays.asList(new ÍndiceCanales.Resultado(país, n - 1, Double.NaN),
+					new ÍndiceCanales.Resultado(país, 0, Double.NaN));
+
+			List<Antena> delXML = Antena.dameAntenasSueltas(fuente, resultados);
+			assertTrue(país + ": se cargó el país", Antena.dameCargados().isEmpty());
+			Antena.esperarInstantáneas();
+			assertTrue(país + ": no se escribió la instantánea", instantáneas.archivo(país).exists());
+
+			List<Antena> sueltas = Antena.dameAntenasSueltas(sinXML, resultados);
+			assertTrue(país + ": se cargó el país", Antena.dameCargados().isEmpty());
+
+			for(int i = 0 ; i < resultados.size() ; i++)
+			{
+				Antena antena = todas.get(resultados.get(i).index);
+				assertEquals(Instantáneas.huella(Collections.singletonList(antena)), Instantáneas.huella(Collections.singletonList(delXML.get(i))));
+				assertEquals(Instantáneas.huella(Collections.singletonList(antena)), Instantáneas.huella(Collections.singletonList(sueltas.get(i))));
+			}
+		}
+	}
+
+	@Test
+	public void otraVersión() throws IOException
+	{
+		for(País país : País.values())
+		{
+			cargarDelXML(país);
+			Antena.descargar(país);
+			List<Antena> otraVersión = new ArrayList<>();
+			assertFalse(país + ": se usó una instantánea de otra versión", new Instantáneas(dir, "otra").leer(país, otraVersión));
+			assertTrue(otraVersión.isEmpty());
+			assertFalse(país + ": no se borró la instantánea de otra versión", instantáneas.archivo(país).exists());
+		}
+	}
+
+	/** Una instantánea dañada se descarta y se vuelve al XML. */
+	@Test
+	public void dañada() throws IOException
+	{
+		for(País país : País.values())
+		{
+			long delXML = cargarDelXML(país);
+			Antena.descargar(país);
+			try(RandomAccessFile raf = new RandomAccessFile(instantáneas.archivo(país), "rw"))
+			{
+				raf.seek(raf.length() / 2);
+				int b = raf.read();
+				raf.seek(raf.length() / 2);
+				raf.write(b ^ 0x55);
+			}
+			assertEquals(país + ": con una instantánea dañada no se volvió al XML", delXML, Instantáneas.huella(Antena.dameAntenas(fuente, país)));
+			Antena.descargar(país);
+		}
+	}
+
+	/** Los strings van en UTF-8 modificado: acentos, el carácter nulo y los que ocupan dos chars. */
+	@Test
+	public void strings() throws IOException
+	{
+		List<Antena> antenas = new ArrayList<>();
+		Antena antena = new Antena("São Paulo – Ñuñoa \u0000 📡", -23.5, -46.6, 0, País.BR, null);
+		antena.agregar(new Canal("Canal 13 ★", "13", null, "Señal", "ref"));
+		antenas.add(antena);
+		antenas.add(new Antena("", -23.6, -46.7, 1, País.BR, "ó"));
+		instantáneas.guardar(País.BR, antenas);
+
+		List<Antena> leídas = new ArrayList<>();
+		assertTrue(instantáneas.leer(País.BR, leídas));
+		assertEquals(Instantáneas.huella(antenas), Instantáneas.huella(leídas));
+		assertEquals(Instantáneas.huella(antenas.subList(1, 2)), Instantáneas.huella(Collections.singletonList(instantáneas.leerUna(País.BR, 1))));
+	}
+
+	/** Las antenas sueltas se leen del archivo ya abierto, pero al guardarlo de nuevo se vuelve a abrir. */
+	@Test
+	public void deAUnaDespuésDeGuardar() throws IOException
+	{
+		List<Antena> antes = Collections.singletonList(new Antena("antes", -34.6, -58.4, 0, País.AR, null));
+		List<Antena> después = Collections.singletonList(new Antena("después", -31.4, -64.2, 0, País.AR, null));
+		instantáneas.guardar(País.AR, antes);
+		assertEquals("antes", instantáneas.leerUna(País.AR, 0).descripción);
+		assertEquals("antes", instantáneas.leerUna(País.AR, 0).descripción);
+		instantáneas.guardar(País.AR, después);
+		assertEquals("después", instantáneas.leerUna(País.AR, 0).descripción);
+		instantáneas.borrar(País.AR);
+		assertNull(instantáneas.leerUna(País.AR, 0));
+	}
+}
@@ -0,0 +1,59 @@
+package ar.com.lichtmaier.antenas;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+/** {@link LectorAntenas} tiene que leer exactamente las mismas antenas que el parser de XML. */
+public class LectorAntenasTest
+{
+	@Test
+	public void archivosDeLaAplicación() throws IOException
+	{
+		FuenteDeDatos fuente = Datos.fuente();
+		for(País país : País.values())
+			comparar(fuente, país);
+	}
+
+	/** Los archivos de {@link GeneradorDatos} tienen los atributos de cada país en otras combinaciones. */
+	@Test
+	public void archivosGenerados() throws IOException
+	{
+		File dir = new File(System.getProperty("java.io.tmpdir"), "antenas-lector-" + System.nanoTime());
+		try
+		{
+			for(País país : País.values())
+			{
+				File f = GeneradorDatos.generar(dir, país, 2000, 7);
+				comparar(new FuenteArchivos(dir), país);
+				//noinspection ResultOfMethodCallIgnored
+				f.delete();
+			}
+		} finally
+		{
+			//noinspection ResultOfMethodCallIgnored
+			dir.delete();
+		}
+	}
+
+	private static void comparar(FuenteDeDatos fuente, País país) throws IOException
+	{
+		List<Antena> conSAX = new ArrayList<>(), conLector = new ArrayList<>();
+		try(InputStream in = fuente.abrir(país))
+		{
+			LectorSAX.leer(in, país, conSAX);
+		}
+		try(InputStream in = fuente.abrir(país))
+		{
+			LectorAntenas.leer(in, país, conLector);
+		}
+		assertEquals(país + ": cantidad de antenas", conSAX.size(), conLector.size());
+		assertEquals(país + ": huella", Instantáneas.huella(conSAX), Instantáneas.huella(conLector));
+	}
+}
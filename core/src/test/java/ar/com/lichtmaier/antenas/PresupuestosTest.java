@@ -0,0 +1,332 @@
+package ar.com.lichtmaier.antenas;
+
+import org.gavaghan.geodesy.GlobalCoordinates;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Properties;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/** Controla que las operaciones críticas no se pasen del tiempo y la memoria acordados.
+ *
+ * Los límites están en <code>presupuestos.properties</code>. Con <code>./gradlew test</code> sólo se controla la
+ * memoria reservada, que no depende de la máquina; los tiempos se informan pero se controlan sólo con
+ * <code>./gradlew :core:presupuestos</code>, que se corre en una máquina sin otra carga.
+ */
+public class PresupuestosTest
+{
+	/** Si se controlan también los tiempos. */
+	private static final boolean TIEMPOS = Boolean.getBoolean("antenas.tiempos");
+
+	private static final Properties límites = new Properties();
+	private static com.sun.management.ThreadMXBean threads;
+	private static FuenteDeDatos fuente;
+	/** Puntos cerca del centro de Nueva York, para que cada repetición parta de una ubicación distinta. */
+	private static final GlobalCoordinates[] coords = new GlobalCoordinates[16];
+
+	/** Una operación a medir. */
+	private interface Operación
+	{
+		/** Se llama antes de cada medición, sin contar el tiempo ni lo que reserva. */
+		void preparar();
+
+		/** Lo que se mide. Devuelve algo para que no se optimice. */
+		Object correr();
+	}
+
+	@BeforeClass
+	public static void leerLímites() throws IOException
+	{
+		try(InputStream in = PresupuestosTest.class.getResourceAsStream("/presupuestos.properties"))
+		{
+			límites.load(in);
+		}
+		threads = (com.sun.management.ThreadMXBean)ManagementFactory.getThreadMXBean();
+		threads.setThreadAllocatedMemoryEnabled(true);
+		fuente = Datos.fuente();
+		double[] ny = Datos.lugar("nueva_york");
+		for(int i = 0 ; i < coords.length ; i++)
+			coords[i] = new GlobalCoordinates(ny[0] + i * .001, ny[1]);
+	}
+
+	@Test
+	public void cargaUS()
+	{
+		controlar("carga_us", new Operación() {
+			@Override
+			public void preparar()
+			{
+				Antena.descargar(País.US);
+			}
+
+			@Override
+			public Object correr()
+			{
+				return Antena.dameAntenas(fuente, País.US);
+			}
+		});
+	}
+
+	@Test
+	public void cercanas60km()
+	{
+		Antena.dameAntenasCerca(fuente, coords[0], 60000, true);
+		controlar("cercanas_60km", new Operación() {
+			int i = 0;
+
+			@Override
+			public void preparar()
+			{
+				i = (i + 1) % coords.length;
+			}
+
+			@Override
+			public Object correr()
+			{
+				return Antena.dameAntenasCerca(fuente, coords[i], 60000, true);
+			}
+		});
+	}
+
+	/** Las diez más cercanas, sin límite de distancia: sólo se recorren las celdas que hacen falta. */
+	@Test
+	public void cercanas10()
+	{
+		Antena.cercanas(fuente, coords[0], null);
+		controlar("cercanas_10", new Operación() {
+			int i = 0;
+
+			@Override
+			public void preparar()
+			{
+				i = (i + 1) % coords.length;
+			}
+
+			@Override
+			public Object correr()
+			{
+				return Antena.cercanas(fuente, coords[i], null).primeras(10);
+			}
+		});
+	}
+
+	/** Toda la pantalla de un teléfono con el mapa en zoom 8, que es lo que se ve al abrirlo. */
+	@Test
+	public void rectánguloPantalla()
+	{
+		Antena.dameAntenas(fuente, País.US);
+		final List<Antena> enRectángulo = new ArrayList<>();
+		controlar("rectangulo_pantalla", new Operación() {
+			@Override
+			public void preparar()
+			{
+				enRectángulo.clear();
+			}
+
+			@Override
+			public Object correr()
+			{
+				Antena.antenasEnRectángulo(43.3, -77.8, 38.0, -70.2, enRectángulo);
+				return enRectángulo;
+			}
+		});
+	}
+
+	/** Lo mismo, pero sólo las antenas de dos cadenas: el filtro se resuelve con los bits del índice. */
+	@Test
+	public void rectánguloFiltrado()
+	{
+		Antena.dameAntenas(fuente, País.US);
+		final List<Antena> enRectángulo = new ArrayList<>();
+		final FiltroAntenas filtro = new FiltroAntenas(new HashSet<>(Arrays.asList("NBC", "PBS")), 0, Integer.MAX_VALUE);
+		controlar("rectangulo_filtrado", new Operación() {
+			@Override
+			public void preparar()
+			{
+				enRectángulo.clear();
+			}
+
+			@Override
+			public Object correr()
+			{
+				Antena.antenasEnRectángulo(43.3, -77.8, 38.0, -70.2, filtro, enRectángulo);
+				return enRectángulo;
+			}
+		});
+	}
+
+	/** El cuadro más caro de la brújula, el primero después de un cambio de ubicación: se vuelve a calcular
+	 * el rumbo a cada una de 200 antenas y se pone el ángulo de cada flecha, como en
+	 * <code>AntenaActivity.nuevaOrientación</code>.
+	 */
+	@Test
+	public void cuadroBrújula()
+	{
+		final List<Antena> antenas = Antena.cercanas(fuente, coords[0], null).primeras(200);
+		final double[] ángulos = new double[antenas.size()];
+		controlar("cuadro_brujula", new Operación() {
+			int i = 0;
+			double brújula = 0;
+
+			@Override
+			public void preparar()
+			{
+				i = (i + 1) % coords.length;
+				brújula = (brújula + 1) % 360;
+			}
+
+			@Override
+			public Object correr()
+			{
+				GlobalCoordinates usuario = coords[i];
+				for(int j = 0 ; j < ángulos.length ; j++)
+					ángulos[j] = antenas.get(j).rumboDesde(usuario) - brújula;
+				return ángulos;
+			}
+		});
+	}
+
+	/** Rotar la pantalla: la actividad nueva pide las antenas cercanas con los mismos parámetros a
+	 * {@link CercanasRetenidas}, como hace <code>RepositorioAntenas</code>. No se tienen que volver a buscar, y
+	 * cada fila sólo lee la distancia y el rumbo ya calculados.
+	 */
+	@Test
+	public void rotación()
+	{
+		final CercanasRetenidas cercanas = new CercanasRetenidas();
+		List<Antena> antes = cercanas.dame(fuente, coords[0], 60000, true, FiltroAntenas.TODAS);
+		volverAMostrar(antes, coords[0]);
+		assertEquals(1, cercanas.dameBúsquedas());
+
+		// La actividad nueva arma sus coordenadas de nuevo.
+		final GlobalCoordinates usuario = new GlobalCoordinates(coords[0].getLatitude(), coords[0].getLongitude());
+		List<Antena> después = cercanas.dame(fuente, usuario, 60000, true, FiltroAntenas.TODAS);
+		assertSame("al rotar se volvieron a buscar las antenas", antes, después);
+		assertFalse(cercanas.buscó());
+		for(Antena antena : después)
+			assertTrue("al rotar se vuelve a calcular la distancia a " + antena, antena.calculadaDesde(usuario));
+
+		controlar("rotacion_retenida", new Operación() {
+			@Override
+			public void preparar()
+			{
+			}
+
+			@Override
+			public Object correr()
+			{
+				return volverAMostrar(cercanas.dame(fuente, usuario, 60000, true, FiltroAntenas.TODAS), usuario);
+			}
+		});
+		assertEquals("al rotar se volvieron a buscar las antenas", 1, cercanas.dameBúsquedas());
+
+		// Con otro radio sí se busca.
+		cercanas.dame(fuente, usuario, 20000, true, FiltroAntenas.TODAS);
+		assertTrue(cercanas.buscó());
+		assertEquals(2, cercanas.dameBúsquedas());
+	}
+
+	/** Lo que hace cada fila de la lista al volver a crearse la actividad. */
+	private static double volverAMostrar(List<Antena> antenas, GlobalCoordinates usuario)
+	{
+		double suma = 0;
+		for(Antena antena : antenas)
+			suma += antena.distanceTo(usuario) + antena.rumboDesde(usuario);
+		return suma;
+	}
+
+	/** Buscar un canal en todos los países, con el índice que se arma al compilar. */
+	@Test
+	public void búsquedaCanales() throws IOException
+	{
+		ByteArrayOutputStream índice = new ByteArrayOutputStream();
+		ÍndiceCanales.escribir(fuente, índice);
+		final ÍndiceCanales canales = ÍndiceCanales.leer(new ByteArrayInputStream(índice.toByteArray()));
+		final String[] consultas = { "abc", "pbs", "canal 13", "fox 28", "ñ" };
+		final GlobalCoordinates desde = coords[0];
+		controlar("busqueda_canales", new Operación() {
+			int i = 0;
+
+			@Override
+			public void preparar()
+			{
+				i = (i + 1) % consultas.length;
+			}
+
+			@Override
+			public Object correr()
+			{
+				return canales.buscar(consultas[i], desde.getLatitude(), desde.getLongitude(), 50);
+			}
+		});
+	}
+
+	/** Corre la operación varias veces y compara la mediana contra el presupuesto.
+	 *
+	 * @param nombre el prefijo de las claves en <code>presupuestos.properties</code>
+	 * @param op la operación
+	 */
+	private static void controlar(String nombre, Operación op)
+	{
+		Medición m = medir(nombre, op);
+		double maxMs = Double.parseDouble(límites.getProperty(nombre + ".ms"));
+		long maxBytes = Long.parseLong(límites.getProperty(nombre + ".bytes"));
+		System.out.printf("%-20s %10.3f ms (máx %.3f) %12d bytes (máx %d)%n", nombre, m.ms, maxMs, m.bytes, maxBytes);
+		if(TIEMPOS)
+			assertTrue(String.format("%s: %.3f ms, el presupuesto es %.3f ms", nombre, m.ms, maxMs), m.ms <= maxMs);
+		assertTrue(String.format("%s: %d bytes reservados, el presupuesto es %d", nombre, m.bytes, maxBytes), m.bytes <= maxBytes);
+	}
+
+	/** La mediana del tiempo y de la memoria reservada en las repeticiones de una operación. */
+	private static final class Medición
+	{
+		final double ms;
+		final long bytes;
+
+		Medición(double ms, long bytes)
+		{
+			this.ms = ms;
+			this.bytes = bytes;
+		}
+	}
+
+	private static Medición medir(String nombre, Operación op)
+	{
+		int calentamiento = Integer.parseInt(límites.getProperty(nombre + ".calentamiento", "20"));
+		int repeticiones = Integer.parseInt(límites.getProperty(nombre + ".repeticiones", "50"));
+
+		for(int i = 0 ; i < calentamiento ; i++)
+		{
+			op.preparar();
+			op.correr();
+		}
+		long yo = Thread.currentThread().getId();
+		long[] tiempos = new long[repeticiones];
+		long[] bytes = new long[repeticiones];
+		for(int i = 0 ; i < repeticiones ; i++)
+		{
+			op.preparar();
+			long b0 = threads.getThreadAllocatedBytes(yo);
+			long t0 = System.nanoTime();
+			op.correr();
+			tiempos[i] = System.nanoTime() - t0;
+			bytes[i] = threads.getThreadAllocatedBytes(yo) - b0;
+		}
+		Arrays.sort(tiempos);
+		Arrays.sort(bytes);
+		return new Medición(tiempos[repeticiones / 2] / 1e6, bytes[repeticiones / 2]);
+	}
+}
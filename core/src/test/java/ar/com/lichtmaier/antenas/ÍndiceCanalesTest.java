@@ -0,0 +1,151 @@
+package ar.com.lichtmaier.antenas;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.*;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/** {@link ÍndiceCanales} tiene que encontrar lo mismo que recorrer todas las antenas de todos los países
+ * buscando las palabras una por una.
+ */
+public class ÍndiceCanalesTest
+{
+	private static final String[] CONSULTAS = {
+			"cbs", "fox 28", "pbs", "kkhj", "wnbc", "winter hill", "sky", "la tele", "olavarria", "pehuajó",
+			"canais 24", "ch 13", "cjbn tv", "abc", "univision", "ñ", "canal", "28", "zzzz" };
+
+	private static ÍndiceCanales índice;
+	/** Las palabras de cada antena, como las indexa ÍndiceCanales. */
+	private static final Map<Integer, Set<String>> palabras = new HashMap<>();
+
+	@BeforeClass
+	public static void armarÍndice() throws IOException
+	{
+		FuenteDeDatos fuente = Datos.fuente();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ÍndiceCanales.escribir(fuente, bytes);
+		índice = ÍndiceCanales.leer(new ByteArrayInputStream(bytes.toByteArray()));
+
+		for(País país : País.values())
+		{
+			List<Antena> antenas = new ArrayList<>();
+			try(InputStream in = fuente.abrir(país))
+			{
+				LectorAntenas.leer(in, país, antenas);
+			}
+			for(Antena antena : antenas)
+			{
+				Set<String> s = new HashSet<>(ÍndiceCanales.palabras(antena.descripción));
+				if(antena.canales != null)
+					for(Canal c : antena.canales)
+					{
+						s.addAll(ÍndiceCanales.palabras(c.nombre));
+						s.addAll(ÍndiceCanales.palabras(c.cadena));
+						s.addAll(ÍndiceCanales.palabras(c.dameCadena()));
+						s.addAll(ÍndiceCanales.palabras(c.numero));
+						for(String n : ÍndiceCanales.palabras(c.numeroVirtual))
+						{
+							s.add(n);
+							if(n.indexOf('.') > 0)
+								s.add(n.substring(0, n.indexOf('.')));
+						}
+					}
+				palabras.put(clave(país, antena.index), s);
+			}
+		}
+	}
+
+	@Test
+	public void igualQueRecorrerTodas()
+	{
+		double[] ny = Datos.lugar("nueva_york");
+		for(String consulta : CONSULTAS)
+		{
+			List<ÍndiceCanales.Resultado> res = índice.buscar(consulta, ny[0], ny[1], Integer.MAX_VALUE);
+			Set<Integer> obtenidas = new HashSet<>();
+			double anterior = 0;
+			for(ÍndiceCanales.Resultado r : res)
+			{
+				obtenidas.add(clave(r.país, r.index));
+				assertTrue(consulta + ": los resultados no están ordenados por distancia", r.distancia >= anterior);
+				anterior = r.distancia;
+			}
+			assertEquals(consulta + ": resultados repetidos", res.size(), obtenidas.size());
+			assertEquals(consulta, esperadas(consulta), obtenidas);
+		}
+	}
+
+	/** Sin ubicación se encuentran las mismas, por país y número de orden. */
+	@Test
+	public void sinUbicación()
+	{
+		for(String consulta : CONSULTAS)
+		{
+			List<ÍndiceCanales.Resultado> res = índice.buscar(consulta, Integer.MAX_VALUE);
+			Set<Integer> obtenidas = new HashSet<>();
+			int anterior = -1;
+			for(ÍndiceCanales.Resultado r : res)
+			{
+				int clave = clave(r.país, r.index);
+				assertTrue(consulta + ": los resultados no están ordenados", clave > anterior);
+				assertTrue(Double.isNaN(r.distancia));
+				anterior = clave;
+				obtenidas.add(clave);
+			}
+			assertEquals(consulta, esperadas(consulta), obtenidas);
+			List<ÍndiceCanales.Resultado> primeras = índice.buscar(consulta, 5);
+			assertEquals(Math.min(5, res.size()), primeras.size());
+			for(int i = 0 ; i < primeras.size() ; i++)
+				assertEquals(clave(res.get(i).país, res.get(i).index), clave(primeras.get(i).país, primeras.get(i).index));
+		}
+	}
+
+	private static Set<Integer> esperadas(String consulta)
+	{
+		Set<Integer> esperadas = new HashSet<>();
+		List<String> buscadas = consultaSinIgnoradas(consulta);
+		for(Map.Entry<Integer, Set<String>> e : palabras.entrySet())
+			if(tieneTodas(e.getValue(), buscadas))
+				esperadas.add(e.getKey());
+		return esperadas;
+	}
+
+	private static int clave(País país, int index)
+	{
+		return (país.ordinal() << 24) | index;
+	}
+
+	private static List<String> consultaSinIgnoradas(String consulta)
+	{
+		List<String> res = new ArrayList<>();
+		for(String p : ÍndiceCanales.palabras(consulta))
+			if(!Arrays.asList("canal", "canales", "canais", "channel", "channels", "ch", "chaine", "chaines").contains(p))
+				res.add(p);
+		return res.isEmpty() ? ÍndiceCanales.palabras(consulta) : res;
+	}
+
+	private static boolean tieneTodas(Set<String> palabras, List<String> buscadas)
+	{
+		for(String b : buscadas)
+		{
+			boolean número = b.matches("[0-9.]+");
+			boolean está = false;
+			for(String p : palabras)
+				if(número ? p.equals(b) : p.startsWith(b))
+				{
+					está = true;
+					break;
+				}
+			if(!está)
+				return false;
+		}
+		return true;
+	}
+}